@@ -0,0 +1,39 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.testdrivendevelopment.OrderManagementSystem.OrderManagementSystemApplication;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//starts the application (embedded H2) for the benchmarks that need Spring, without banner and with quiet logging
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() { }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return new SpringApplicationBuilder(OrderManagementSystemApplication.class)
+                .web(webApplicationType)
+                //the load generators are one client, so the rate limit would measure itself
+                .properties("spring.main.banner-mode=off", "logging.level.root=warn", "server.port=0", "orders.rate-limit.enabled=false")
+                .properties(properties)
+                .run();
+    }
+
+    //a valid order, the index makes every customer name different
+    static Order order(int index) {
+        return new Order("Customer " + index, LocalDate.of(2023, 6, 11).minusDays(index % 365), index + " Swamp Ave", 10.0 + index % 1000);
+    }
+
+    static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(order(i));
+        }
+        return orders;
+    }
+}
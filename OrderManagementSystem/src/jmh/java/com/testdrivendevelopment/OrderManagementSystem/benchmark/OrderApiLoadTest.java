@@ -0,0 +1,154 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+//closed loop HTTP load test of the order API in several modes, reporting startup time and steady-state throughput
+//  platform - dev profile, in-memory H2, Tomcat platform threads
+//  virtual  - dev + virtual-threads profiles
+//  file     - prod profile, file-backed H2 under target/load-test-db
+//every client repeatedly reads a random order (80%) or creates one (20%); throughput and latency percentiles
+//are printed and written as JSON to the path given as first argument
+//clients, duration and modes come from -Dload.clients (default 1000), -Dload.seconds (default 30)
+//and -Dload.modes (default platform,virtual,file)
+public final class OrderApiLoadTest {
+    private static final int SEED_ORDERS = 10_000;
+    private static final String ORDER_JSON = "{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0}";
+
+    private OrderApiLoadTest() { }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.clients", 1000);
+        int seconds = Integer.getInteger("load.seconds", 30);
+        List<String> results = new ArrayList<>();
+        for (String mode : System.getProperty("load.modes", "platform,virtual,file").split(",")) {
+            results.add(run(mode.trim(), clients, seconds));
+        }
+        String json = "[\n" + String.join(",\n", results) + "\n]\n";
+        System.out.print(json);
+        if (args.length > 0) {
+            Files.writeString(Path.of(args[0]), json);
+        }
+    }
+
+    private static String run(String mode, int clients, int seconds) throws Exception {
+        long startupBegin = System.nanoTime();
+        //the cache is off so every read goes through JDBC, which is what the request threads block on
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                "spring.profiles.active=" + profiles(mode),
+                "orders.data-dir=target/load-test-db",
+                "spring.cache.type=none")) {
+            long startupMillis = (System.nanoTime() - startupBegin) / 1_000_000;
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<Order> saved = context.getBean(OrderRepository.class).saveAll(BenchmarkApplication.orders(SEED_ORDERS));
+            long firstId = saved.get(0).getId();
+            String baseUrl = "http://localhost:" + port + "/api/orders";
+
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            AtomicLong errors = new AtomicLong();
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            List<Future<long[]>> futures = new ArrayList<>(clients);
+            try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    futures.add(clientThreads.submit(() -> client(httpClient, baseUrl, firstId, deadline, errors)));
+                }
+            }
+            long[] latencies = merge(futures);
+            Arrays.sort(latencies);
+            return String.format(Locale.ROOT,
+                    "  {\"mode\": \"%s\", \"clients\": %d, \"seconds\": %d, \"startupMillis\": %d, \"requests\": %d, \"errors\": %d, "
+                            + "\"throughputPerSecond\": %.1f, \"p50Millis\": %.3f, \"p99Millis\": %.3f, \"maxMillis\": %.3f}",
+                    mode, clients, seconds, startupMillis, latencies.length, errors.get(),
+                    latencies.length / (double) seconds, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                    latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1_000_000.0);
+        }
+    }
+
+    private static String profiles(String mode) {
+        return switch (mode) {
+            case "platform" -> "dev";
+            case "virtual" -> "dev,virtual-threads";
+            case "file" -> "prod";
+            default -> throw new IllegalArgumentException("Unknown load test mode: " + mode);
+        };
+    }
+
+    //one simulated client, returns the latency in nanoseconds of each request it made
+    private static long[] client(HttpClient httpClient, String baseUrl, long firstId, long deadline, AtomicLong errors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = random.nextInt(100) < 80
+                    ? HttpRequest.newBuilder(URI.create(baseUrl + "/" + (firstId + random.nextInt(SEED_ORDERS)))).GET().build()
+                    : HttpRequest.newBuilder(URI.create(baseUrl)).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(ORDER_JSON)).build();
+            long begin = System.nanoTime();
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                }
+            } catch (IOException e) {
+                errors.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - begin;
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static long[] merge(List<Future<long[]>> futures) throws Exception {
+        List<long[]> parts = new ArrayList<>(futures.size());
+        int total = 0;
+        for (Future<long[]> future : futures) {
+            long[] part = future.get();
+            parts.add(part);
+            total += part.length;
+        }
+        long[] merged = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, merged, offset, part.length);
+            offset += part.length;
+        }
+        return merged;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
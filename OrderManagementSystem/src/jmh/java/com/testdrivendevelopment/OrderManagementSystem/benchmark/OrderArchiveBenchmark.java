@@ -0,0 +1,91 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderArchiveService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.customerNameIs;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.orderDateBetween;
+
+//the hot orders table before (archived=false) and after (archived=true) moving everything older than a year to orders_archive:
+//ten years of orders, so archiving leaves about a tenth of the rows in the hot table
+//row counts and disk space of both tables are printed at setup, then the usual queries over recent orders are timed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class OrderArchiveBenchmark {
+    private static final int CUSTOMERS = 10_000;
+    private static final int DAYS = 3650;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean archived;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "spring.cache.type=none", "orders.archive.batch-size=5000");
+        orderRepository = context.getBean(OrderRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("delete from orders");
+        jdbc.update("delete from orders_archive");
+        //generated in the database, ids are far above the sequence so they never clash with the seeded orders
+        jdbc.update("insert into orders (id, customer_name, order_date, shipping_address, total_minor, currency, version) "
+                + "select 1000000000 + x, 'Customer ' || mod(x, " + CUSTOMERS + "), dateadd('DAY', -mod(x, " + DAYS + "), current_date), "
+                + "x || ' Swamp Ave', mod(x, 100000) + 100, 'USD', 0 from system_range(1, ?)", rows);
+        if (archived) {
+            long started = System.nanoTime();
+            int moved = context.getBean(OrderArchiveService.class).archiveBefore(LocalDate.now().minusDays(365));
+            System.out.println("archived " + moved + " orders in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+        }
+        jdbc.execute("analyze");
+        for (String table : new String[] {"ORDERS", "ORDERS_ARCHIVE"}) {
+            System.out.println("archived=" + archived + " " + table + ": "
+                    + jdbc.queryForObject("select count(*) from " + table, Long.class) + " rows, "
+                    + jdbc.queryForObject("select disk_space_used('" + table + "')", Long.class) + " bytes");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    //one customer's orders, newest first
+    @Benchmark
+    public Page<Order> searchByCustomer() {
+        String customer = "Customer " + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+        return orderRepository.findAll(customerNameIs(customer), PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "orderDate").and(Sort.by("id"))));
+    }
+
+    //a day within the last year
+    @Benchmark
+    public Page<Order> searchByRecentDate() {
+        LocalDate day = LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(365));
+        return orderRepository.findAll(orderDateBetween(day, day), PageRequest.of(0, 50, Sort.by("id")));
+    }
+
+    //what a full scan of the hot table costs
+    @Benchmark
+    public long countAll() {
+        return orderRepository.count();
+    }
+}
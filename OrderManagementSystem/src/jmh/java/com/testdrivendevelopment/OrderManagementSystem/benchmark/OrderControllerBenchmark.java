@@ -0,0 +1,69 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//full OrderController request path (dispatch, validation, JSON, repository) through MockMvc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderControllerBenchmark {
+    private static final String ORDER_JSON = "{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0}";
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private long orderId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        List<Order> saved = orderRepository.saveAll(BenchmarkApplication.orders(1000));
+        orderId = saved.get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse createOrder() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ORDER_JSON)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getOrderById() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/" + orderId)).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse getOrderPage() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/api/orders?size=50")).andReturn().getResponse();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse updateOrder() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/" + orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ORDER_JSON)).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,140 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//memory footprint of one Order (JOL) and allocation of the findAll + serialize path (-prof gc),
+//comparing the primitive long total in cents (written by MoneySerializer) with the previous boxed Double total
+//./mvnw -Pbenchmark test-compile exec:exec@footprint, results are written to target/jmh-footprint-result.json
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderFootprintBenchmark {
+    @Param({"1000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private ObjectWriter writer;
+    private List<Order> orders;
+    private List<DoubleTotalOrder> doubleTotalOrders;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "spring.cache.type=none");
+        orderRepository = context.getBean(OrderRepository.class);
+        writer = context.getBean(ObjectMapper.class).writer();
+        orderRepository.deleteAllInBatch();
+        orders = orderRepository.saveAll(BenchmarkApplication.orders(rows));
+        doubleTotalOrders = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            doubleTotalOrders.add(DoubleTotalOrder.of(order));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    //what GET /api/orders/stream and the listings do per row: load the entities and write them as JSON
+    @Benchmark
+    public byte[] findAllAndSerialize() throws IOException {
+        return writer.writeValueAsBytes(orderRepository.findAll());
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public byte[] serializeDoubleTotal() throws IOException {
+        return writer.writeValueAsBytes(doubleTotalOrders);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Order order = BenchmarkApplication.order(42);
+        order.setId(42L);
+        order.setVersion(1L);
+        DoubleTotalOrder doubleTotalOrder = DoubleTotalOrder.of(order);
+        System.out.println(ClassLayout.parseClass(Order.class).toPrintable());
+        System.out.println(ClassLayout.parseClass(DoubleTotalOrder.class).toPrintable());
+        System.out.println("Order (long cents) retained size: " + GraphLayout.parseInstance(order).totalSize() + " bytes");
+        //with the Double the entity held
+        System.out.println("Order (Double total) retained size: " + GraphLayout.parseInstance(doubleTotalOrder, doubleTotalOrder.getTotal()).totalSize() + " bytes");
+        new Runner(new OptionsBuilder()
+                .include(OrderFootprintBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)     //gc.alloc.rate.norm = bytes allocated per call
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "jmh-footprint-result.json")
+                .build()).run();
+    }
+
+    //the order as it was before the total became cents: same fields, total as a Double
+    //boxed on every read like the entity's Double did per loaded row, a Double held here would only be boxed once per setUp
+    public static final class DoubleTotalOrder {
+        private Long id;
+        private String customerName;
+        private LocalDate orderDate;
+        private String shippingAddress;
+        private double total;
+        private Long version;
+
+        static DoubleTotalOrder of(Order order) {
+            DoubleTotalOrder copy = new DoubleTotalOrder();
+            copy.id = order.getId();
+            copy.customerName = order.getCustomerName();
+            copy.orderDate = order.getOrderDate();
+            copy.shippingAddress = order.getShippingAddress();
+            copy.total = order.getTotal().doubleValue();
+            copy.version = order.getVersion();
+            return copy;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getCustomerName() {
+            return customerName;
+        }
+
+        public LocalDate getOrderDate() {
+            return orderDate;
+        }
+
+        public String getShippingAddress() {
+            return shippingAddress;
+        }
+
+        public Double getTotal() {
+            return Double.valueOf(total);
+        }
+
+        public Long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+//JSON (de)serialization of one Order with the same Jackson setup Spring Boot uses for the API
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderJsonBenchmark {
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private Order order;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(Order.class);
+        reader = objectMapper.readerFor(Order.class);
+        order = BenchmarkApplication.order(42);
+        order.setId(42L);
+        order.setVersion(1L);
+        json = writer.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public Order deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
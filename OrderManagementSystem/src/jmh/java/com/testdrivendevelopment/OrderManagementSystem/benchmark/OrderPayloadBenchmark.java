@@ -0,0 +1,67 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+//bytes on the wire and CPU per response for a page of orders in each representation the API can send:
+//JSON and CBOR (Accept: application/cbor), each plain and gzip compressed (server.compression)
+//the size of every format is printed at setup, -Djmh.include=OrderPayload to run only this one
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPayloadBenchmark {
+    //one order, the default page and the largest page
+    @Param({"1", "50", "1000"})
+    public int rows;
+
+    @Param({"json", "json-gzip", "cbor", "cbor-gzip"})
+    public String format;
+
+    private ObjectWriter writer;
+    private boolean gzip;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (format.startsWith("cbor")) {
+            builder.factory(new CBORFactory());
+        }
+        writer = builder.build().writer();
+        gzip = format.endsWith("gzip");
+        orders = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Order order = BenchmarkApplication.order(i);
+            order.setId((long) i + 1);
+            order.setVersion(1L);
+            orders.add(order);
+        }
+        System.out.println(format + ", " + rows + " orders: " + encode().length + " bytes on the wire");
+    }
+
+    //what the server does per response: serialize, then compress when the format is compressed
+    @Benchmark
+    public byte[] encode() throws IOException {
+        if (!gzip) {
+            return writer.writeValueAsBytes(orders);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            writer.writeValue(out, orders);
+        }
+        return bytes.toByteArray();
+    }
+}
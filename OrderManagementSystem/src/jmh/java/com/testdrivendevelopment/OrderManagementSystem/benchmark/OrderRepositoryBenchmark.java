@@ -0,0 +1,60 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//OrderRepository save/findById/findAll against embedded H2, with and without the order cache in front of findById
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderRepositoryBenchmark {
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "spring.cache.type=" + (cache ? "caffeine" : "none"));
+        orderRepository = context.getBean(OrderRepository.class);
+        orderRepository.deleteAllInBatch();
+        List<Order> saved = orderRepository.saveAll(BenchmarkApplication.orders(rows));
+        firstId = saved.get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order save() {
+        return orderRepository.save(BenchmarkApplication.order(7));
+    }
+
+    @Benchmark
+    public Optional<Order> findById() {
+        return orderRepository.findById(firstId + ThreadLocalRandom.current().nextInt(rows));
+    }
+
+    @Benchmark
+    public List<Order> findAll() {
+        return orderRepository.findAll();
+    }
+}
@@ -0,0 +1,94 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.customerNameIs;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.orderDateBetween;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.totalBetween;
+
+//search queries over a multi-million row orders table with the indexes of Order in place (indexed=true)
+//and dropped (indexed=false, full scan); the query plans are printed at setup so index use can be checked
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class OrderSearchBenchmark {
+    private static final int CUSTOMERS = 10_000;
+    private static final int DAYS = 3650;
+
+    @Param({"2000000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "spring.cache.type=none");
+        orderRepository = context.getBean(OrderRepository.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("delete from orders");
+        //generated in the database, ids are far above the sequence so they never clash with the seeded orders
+        jdbc.update("insert into orders (id, customer_name, order_date, shipping_address, total_minor, currency, version) "
+                + "select 1000000000 + x, 'Customer ' || mod(x, " + CUSTOMERS + "), dateadd('DAY', -mod(x, " + DAYS + "), current_date), "
+                + "x || ' Swamp Ave', mod(x, 100000) + 100, 'USD', 0 from system_range(1, ?)", rows);
+        if (!indexed) {
+            jdbc.execute("drop index idx_orders_customer_date");
+            jdbc.execute("drop index idx_orders_order_date");
+            jdbc.execute("drop index idx_orders_total");
+        }
+        jdbc.execute("analyze");
+        System.out.println("indexed=" + indexed + " customer plan: " + jdbc.queryForList(
+                "explain select * from orders where customer_name = 'Customer 42' order by id", String.class));
+        System.out.println("indexed=" + indexed + " date plan: " + jdbc.queryForList(
+                "explain select * from orders where order_date between dateadd('DAY', -7, current_date) and current_date order by id", String.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Order> searchByCustomer() {
+        String customer = "Customer " + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+        return orderRepository.findAll(customerNameIs(customer), PageRequest.of(0, 50, Sort.by("orderDate").and(Sort.by("id"))));
+    }
+
+    @Benchmark
+    public Page<Order> searchByDateRange() {
+        LocalDate to = LocalDate.now().minusDays(ThreadLocalRandom.current().nextInt(DAYS));
+        return orderRepository.findAll(orderDateBetween(to.minusDays(1), to), PageRequest.of(0, 50, Sort.by("id")));
+    }
+
+    @Benchmark
+    public Page<Order> searchByTotalRange() {
+        BigDecimal min = BigDecimal.valueOf(100 + ThreadLocalRandom.current().nextInt(99_000), 2);
+        return orderRepository.findAll(totalBetween(min, min.add(BigDecimal.ONE)), PageRequest.of(0, 50, Sort.by("total").and(Sort.by("id"))));
+    }
+
+    @Benchmark
+    public Page<Order> searchByCustomerAndDate() {
+        String customer = "Customer " + ThreadLocalRandom.current().nextInt(CUSTOMERS);
+        return orderRepository.findAll(customerNameIs(customer).and(orderDateBetween(LocalDate.now().minusDays(DAYS / 2), LocalDate.now())),
+                PageRequest.of(0, 50, Sort.by("id")));
+    }
+}
@@ -0,0 +1,157 @@
+package com.testdrivendevelopment.OrderManagementSystem.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.testdrivendevelopment.OrderManagementSystem.controller.OrderController;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.validation.FieldViolation;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidationException;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidator;
+import com.testdrivendevelopment.OrderManagementSystem.validation.ValidationErrors;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//validation of Order before (Hibernate Validator) and after (OrderValidator), for a valid and an invalid order,
+//and the whole POST /api/orders body handling around it:
+//  - beanValidation*Request: Boot's ObjectMapper, @Valid, MethodArgumentNotValidException and the errors joined into a String
+//  - handWritten*Request: ObjectMapper with Blackbird, OrderValidator, the stackless OrderValidationException and ValidationErrors
+//./mvnw -Pbenchmark test-compile exec:exec@validation adds -prof gc (gc.alloc.rate.norm = bytes allocated per request),
+//results are written to target/jmh-validation-result.json
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderValidationBenchmark {
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Order validOrder;
+    private Order invalidOrder;
+    private ObjectReader reader;
+    private ObjectReader blackbirdReader;
+    private MethodParameter createOrderBody;
+    private byte[] validJson;
+    private byte[] invalidJson;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validOrder = BenchmarkApplication.order(42);
+        invalidOrder = new Order("", LocalDate.now().plusDays(1), "", -100.0);
+        reader = Jackson2ObjectMapperBuilder.json().build().readerFor(Order.class);
+        ObjectMapper blackbird = Jackson2ObjectMapperBuilder.json().modulesToInstall(new BlackbirdModule()).build();
+        blackbirdReader = blackbird.readerFor(Order.class);
+        createOrderBody = new MethodParameter(OrderController.class.getMethod("createOrder", Order.class, String.class), 0);
+        validJson = "{\"customerName\": \"Shrek\", \"orderDate\": \"2023-06-11\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0}"
+                .getBytes(StandardCharsets.UTF_8);
+        invalidJson = "{\"customerName\": \"\", \"orderDate\": \"2999-01-01\", \"shippingAddress\": \"\", \"total\": -100.0}"
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Order>> validOrder() {
+        return validator.validate(validOrder);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Order>> invalidOrder() {
+        return validator.validate(invalidOrder);
+    }
+
+    @Benchmark
+    public List<FieldViolation> handWrittenValidOrder() {
+        return OrderValidator.validate(validOrder);
+    }
+
+    @Benchmark
+    public List<FieldViolation> handWrittenInvalidOrder() {
+        return OrderValidator.validate(invalidOrder);
+    }
+
+    @Benchmark
+    public Object beanValidationValidRequest() throws IOException {
+        return beanValidationRequest(validJson);
+    }
+
+    @Benchmark
+    public Object beanValidationInvalidRequest() throws IOException {
+        return beanValidationRequest(invalidJson);
+    }
+
+    @Benchmark
+    public Object handWrittenValidRequest() throws IOException {
+        return handWrittenRequest(validJson);
+    }
+
+    @Benchmark
+    public Object handWrittenInvalidRequest() throws IOException {
+        return handWrittenRequest(invalidJson);
+    }
+
+    //what Spring MVC does for @Valid @RequestBody Order and what handleValidationExceptions did with the errors
+    private Object beanValidationRequest(byte[] json) throws IOException {
+        Order order = reader.readValue(json);
+        Set<ConstraintViolation<Order>> violations = validator.validate(order);
+        if (violations.isEmpty()) {
+            return order;
+        }
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(order, "order");
+        for (ConstraintViolation<Order> violation : violations) {
+            bindingResult.addError(new FieldError("order", violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        MethodArgumentNotValidException ex = new MethodArgumentNotValidException(createOrderBody, bindingResult);
+        return ex.getBindingResult()
+                .getFieldErrors()
+                .stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .toList()
+                .toString();
+    }
+
+    private Object handWrittenRequest(byte[] json) throws IOException {
+        Order order = blackbirdReader.readValue(json);
+        try {
+            OrderValidator.requireValid(order);
+            return order;
+        } catch (OrderValidationException ex) {
+            return new ValidationErrors(ex.getViolations());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderValidationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)     //gc.alloc.rate.norm = bytes allocated per call
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 0 ? args[0] : "jmh-validation-result.json")
+                .build()).run();
+    }
+}
@@ -0,0 +1,28 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//enables the read-through order cache declared on OrderRepository
+//size, TTL and statistics are set by spring.cache.caffeine.spec, hit/miss/eviction counts are exposed by Actuator
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    //evictions (and puts) inside a transaction wait for its commit: evicted before, a concurrent findById could read
+    //the old committed row and cache it again for the whole TTL, with its stale ETag
+    //wraps the cache manager Spring Boot builds from spring.cache.*, so spring.cache.type=none still turns it off
+    @Bean
+    static BeanPostProcessor transactionAwareCaches() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof CaffeineCacheManager caffeine ? new TransactionAwareCacheManagerProxy(caffeine) : bean;
+            }
+        };
+    }
+}
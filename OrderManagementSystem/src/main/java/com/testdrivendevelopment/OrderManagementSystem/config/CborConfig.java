@@ -0,0 +1,29 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+//compact binary representation for internal clients: Accept (or Content-Type) application/cbor
+//same ObjectMapper settings as the JSON one (dates, totals as decimals), only the encoding differs
+//added after the JSON converters so clients that accept anything still get JSON
+@Configuration
+public class CborConfig {
+
+    @Bean
+    WebMvcConfigurer cborMessageConverterConfigurer(Jackson2ObjectMapperBuilder builder) {
+        MappingJackson2CborHttpMessageConverter cbor = new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(cbor);
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import com.testdrivendevelopment.OrderManagementSystem.datasource.ReadReplicaRoutingDataSource;
+import com.testdrivendevelopment.OrderManagementSystem.datasource.ReadYourWritesInterceptor;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.ApiClients;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//read/write split, turned on by setting orders.datasource.replica.jdbc-url (see the replica profile):
+//  - the primary pool is spring.datasource.* as before, the replica pool is orders.datasource.replica.* (any Hikari setting)
+//  - read-only transactions go to the replica, writes and everything outside a read-only transaction to the primary
+//  - a client that has just written reads from the primary for orders.datasource.read-your-writes-window
+@Configuration
+@ConditionalOnProperty(name = "orders.datasource.replica.jdbc-url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("orders.datasource.replica")
+    HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    //what JPA, JdbcTemplate and the rest use: the lazy proxy defers taking a connection until the first statement,
+    //when the transaction's read-only flag is known and the route can be picked
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                          @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReadReplicaRoutingDataSource routing = new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    WebMvcConfigurer readYourWritesConfigurer(ApiClients apiClients,
+                                              @Value("${orders.datasource.read-your-writes-window:PT5S}") Duration window,
+                                              @Value("${orders.datasource.read-your-writes-max-clients:100000}") long maxClients) {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(apiClients, window, maxClients);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(interceptor).addPathPatterns("/api/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+//Blackbird replaces Jackson's reflective getter/setter calls with generated lambdas, which is cheaper per order read or written
+//Spring Boot registers every Module bean with the ObjectMapper, so JSON and CBOR (CborConfig) both get it
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,29 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import com.testdrivendevelopment.OrderManagementSystem.metrics.OrderApiMetricsInterceptor;
+import com.testdrivendevelopment.OrderManagementSystem.metrics.OrderRepositoryMetricsAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//latency timers for the order API and OrderRepository, Hikari, Hibernate, cache and JVM metrics come from Actuator
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    OrderRepositoryMetricsAspect orderRepositoryMetricsAspect(MeterRegistry registry) {
+        return new OrderRepositoryMetricsAspect(registry);
+    }
+
+    @Bean
+    WebMvcConfigurer orderApiMetricsConfigurer(MeterRegistry registry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(new OrderApiMetricsInterceptor(registry)).addPathPatterns("/api/orders/**");
+            }
+        };
+    }
+}
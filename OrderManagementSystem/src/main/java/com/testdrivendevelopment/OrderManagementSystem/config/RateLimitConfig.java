@@ -0,0 +1,52 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.ApiClients;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.Budget;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.RateLimitInterceptor;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.RepositoryConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Set;
+
+//load protection for the order API, turned off with orders.rate-limit.enabled=false
+//  - per client token buckets in front of the handlers (429)
+//  - a concurrency limit in front of the order services and repositories (503)
+@Configuration
+@ConditionalOnProperty(name = "orders.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    WebMvcConfigurer rateLimitConfigurer(MeterRegistry registry, ApiClients apiClients,
+                                         @Value("${orders.rate-limit.standard.capacity:200}") int standardCapacity,
+                                         @Value("${orders.rate-limit.standard.refill-per-second:100}") double standardRefill,
+                                         @Value("${orders.rate-limit.expensive.capacity:20}") int expensiveCapacity,
+                                         @Value("${orders.rate-limit.expensive.refill-per-second:5}") double expensiveRefill,
+                                         @Value("${orders.rate-limit.expensive.operations:getAllOrders,searchOrders,streamAllOrders,createOrders,updateOrders,deleteOrders}") Set<String> expensiveOperations,
+                                         @Value("${orders.rate-limit.max-clients:100000}") long maxClients,
+                                         @Value("${orders.rate-limit.idle-timeout:PT10M}") Duration idleTimeout) {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(registry, apiClients,
+                new Budget("standard", standardCapacity, standardRefill),
+                new Budget("expensive", expensiveCapacity, expensiveRefill),
+                expensiveOperations, maxClients, idleTimeout);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(interceptor).addPathPatterns("/api/orders/**");
+            }
+        };
+    }
+
+    @Bean
+    RepositoryConcurrencyLimiter repositoryConcurrencyLimiter(MeterRegistry registry,
+                                                              @Value("${orders.admission.max-concurrent:8}") int maxConcurrent,
+                                                              @Value("${orders.admission.acquire-timeout:PT0.1S}") Duration acquireTimeout) {
+        return new RepositoryConcurrencyLimiter(registry, maxConcurrent, acquireTimeout);
+    }
+}
@@ -0,0 +1,11 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+//runs the @Scheduled jobs: the change stream dispatcher, the outbox compaction, the idempotency key purge and the archival
+//on a pool of spring.task.scheduling.pool.size threads, so a long compaction or archive batch does not delay the dispatcher
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,31 @@
+package com.testdrivendevelopment.OrderManagementSystem.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+//virtual thread mode, turned on with orders.threads.virtual=true (see the virtual-threads profile)
+//every request, and so every blocking OrderRepository call, runs on its own virtual thread instead of the Tomcat pool
+//the number of concurrent JDBC calls is then bounded by the Hikari pool, not by the thread pool
+@Configuration
+@ConditionalOnProperty(name = "orders.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    //Tomcat hands each request to a new virtual thread
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    //async MVC requests and @Async work run on virtual threads as well
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,63 @@
+package com.testdrivendevelopment.OrderManagementSystem.controller;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChangeBatch;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderChangeFeed;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderEventService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+//change data capture: every order create/update/delete in sequence order, so consumers catch up incrementally
+//instead of re-reading GET /api/orders, 'from' is the last sequence the consumer has seen (0 or absent = oldest retained)
+@RestController
+@RequestMapping("/api/orders/changes")
+public class OrderChangeController {
+    private final OrderEventService orderEventService;
+    private final OrderChangeFeed orderChangeFeed;
+    //longest wait of one long poll
+    private final Duration maxWait;
+
+    @Autowired
+    OrderChangeController(OrderEventService orderEventService, OrderChangeFeed orderChangeFeed,
+                          @Value("${orders.changes.max-wait:PT30S}") Duration maxWait) {
+        this.orderEventService = orderEventService;
+        this.orderChangeFeed = orderChangeFeed;
+        this.maxWait = maxWait;
+    }
+
+    //LONG POLL - the next batch of changes after 'from', waiting up to 'wait' seconds for one (empty batch when none came)
+    @GetMapping
+    public DeferredResult<ResponseEntity<OrderChangeBatch>> getChanges(@RequestParam(required = false) Long from,
+                                                                       @RequestParam(defaultValue = "25") long wait) {
+        long after = position(from);
+        if (orderEventService.isCompacted(after)) {
+            DeferredResult<ResponseEntity<OrderChangeBatch>> gone = new DeferredResult<>();
+            gone.setResult(ResponseEntity.status(HttpStatus.GONE).build());   //return status GONE (410), the changes were compacted, resync
+            return gone;
+        }
+        Duration waitFor = Duration.ofSeconds(Math.max(0, wait));
+        return orderChangeFeed.poll(after, waitFor.compareTo(maxWait) > 0 ? maxWait : waitFor);
+    }
+
+    //SSE - stays open and pushes batches as they are committed, reconnecting clients resume from Last-Event-ID
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestParam(required = false) Long from,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long after = position(lastEventId != null ? lastEventId : from);
+        if (orderEventService.isCompacted(after)) {
+            return ResponseEntity.status(HttpStatus.GONE).build();   //return status GONE (410), the changes were compacted, resync
+        }
+        return ResponseEntity.ok(orderChangeFeed.stream(after));
+    }
+
+    private long position(Long from) {
+        return (from == null || from <= 0) ? orderEventService.firstPosition() : from;
+    }
+}
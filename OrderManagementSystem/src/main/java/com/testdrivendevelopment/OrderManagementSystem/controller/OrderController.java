@@ -1,92 +1,407 @@
 package com.testdrivendevelopment.OrderManagementSystem.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.testdrivendevelopment.OrderManagementSystem.ingest.IngestionStoppedException;
+import com.testdrivendevelopment.OrderManagementSystem.ingest.OrderIngestionService;
+import com.testdrivendevelopment.OrderManagementSystem.model.BatchItemResult;
+import com.testdrivendevelopment.OrderManagementSystem.model.IngestionStatus;
 import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.RepositoryBusyException;
 import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
-import jakarta.validation.Valid;
+import com.testdrivendevelopment.OrderManagementSystem.service.IdempotencyService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderArchiveService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderBatchService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderExportService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderItemService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderService;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidationException;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidator;
+import com.testdrivendevelopment.OrderManagementSystem.validation.ValidationErrors;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.customerNameIs;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.orderDateBetween;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.totalBetween;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
+    //properties the search results can be sorted by, all of them are indexed
+    private static final Set<String> SEARCH_SORTS = Set.of("id", "customerName", "orderDate", "total");
     //bringing in the repo for functionality
     private final OrderRepository orderRepository;
+    //single order writes, keeps the revenue rollups up to date
+    private final OrderService orderService;
+    //streams the whole table as NDJSON without holding it in memory
+    private final OrderExportService orderExportService;
+    //bulk create/update/delete with JDBC batching
+    private final OrderBatchService orderBatchService;
+    //orders moved out of the orders table once old enough, read when the table misses
+    private final OrderArchiveService orderArchiveService;
+    //items of an order, changed through the order
+    private final OrderItemService orderItemService;
+    //asynchronous write-behind ingestion, only present with orders.ingest.async=true
+    private final ObjectProvider<OrderIngestionService> orderIngestionService;
+    //replays the response of a request repeated with the same Idempotency-Key instead of writing again
+    private final IdempotencyService idempotencyService;
+    //page sizes for the keyset paginated listing
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    //largest number of elements accepted by one bulk call
+    private final int maxBatchSize;
     //@Autowired to wire dependencies, in this case via the constructor
     @Autowired
-    OrderController(OrderRepository orderRepository) {
+    OrderController(OrderRepository orderRepository, OrderService orderService, OrderExportService orderExportService,
+                    OrderBatchService orderBatchService, OrderArchiveService orderArchiveService, OrderItemService orderItemService,
+                    ObjectProvider<OrderIngestionService> orderIngestionService,
+                    IdempotencyService idempotencyService,
+                    @Value("${orders.page.default-size:50}") int defaultPageSize,
+                    @Value("${orders.page.max-size:1000}") int maxPageSize,
+                    @Value("${orders.batch.max-size:10000}") int maxBatchSize) {
         this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.orderExportService = orderExportService;
+        this.orderBatchService = orderBatchService;
+        this.orderArchiveService = orderArchiveService;
+        this.orderItemService = orderItemService;
+        this.orderIngestionService = orderIngestionService;
+        this.idempotencyService = idempotencyService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
     }
     //CRUD FUNCTIONALITIES BELOW:
     //CREATE
+    //with an Idempotency-Key header a retried request gets the original response back instead of a second order
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order) {     //Validation required
-        Order createdOrder = orderRepository.save(order);   //saving order in repository
+    public ResponseEntity<Order> createOrder(@RequestBody Order order,
+                                             @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws IOException {
+        OrderValidator.requireValid(order);     //Validation required, before the idempotency key is claimed
+        if (idempotencyKey != null) {
+            return idempotencyService.execute(idempotencyKey, "POST /api/orders", order, new TypeReference<Order>() { }, () -> create(order));
+        }
+        return create(order);
+    }
+
+    private ResponseEntity<Order> create(Order order) throws IOException {
+        OrderIngestionService ingestion = orderIngestionService.getIfAvailable();
+        if (ingestion != null) {    //asynchronous mode: queue the order and answer before it is written
+            Optional<UUID> ticket = ingestion.submit(order);
+            if (ticket.isEmpty()) {     //the queue is full
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();  //return status TOO MANY REQUESTS (429)
+            }
+            return ResponseEntity.accepted()
+                    .location(linkTo(methodOn(OrderController.class).getIngestionStatus(ticket.get())).toUri())
+                    .build();   //return status ACCEPTED (202) with the status link
+        }
+        Order createdOrder = orderService.create(order);   //saving order in repository
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);    //return response with created order (201 = CREATED)
     }
 
     //READ
     @GetMapping("/{id}")
     public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        Optional<Order> optionalOrder = orderRepository.findById(id);   //find order with parametered id
+        Optional<Order> optionalOrder = orderRepository.findById(id)    //find order with parametered id
+                .or(() -> orderArchiveService.findById(id));     //not in the orders table, it may have been archived
         if (optionalOrder.isPresent()) {    //if order exists
             Order order = optionalOrder.get();
-            return ResponseEntity.ok(order);    //return status OK (200)
+            //the ETag comes from the version, a matching If-None-Match (or If-Modified-Since) is answered with NOT MODIFIED (304) and no body
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(eTag(order));
+            if (order.getUpdatedAt() != null) {
+                response.lastModified(order.getUpdatedAt());
+            }
+            return response.body(order);    //return status OK (200)
         } else {    //else
             return ResponseEntity.notFound().build();   //return status not found (400)
         }
     }
 
+    //ITEMS of an order, loaded with it (archived orders included)
+    @GetMapping("/{id}/items")
+    public ResponseEntity<List<OrderItem>> getOrderItems(@PathVariable Long id) {
+        Optional<Order> optionalOrder = orderRepository.findById(id).or(() -> orderArchiveService.findById(id));
+        if (optionalOrder.isEmpty()) {
+            return ResponseEntity.notFound().build();   //return status NOT FOUND (404)
+        }
+        return ResponseEntity.ok(optionalOrder.get().getItems());   //return status OK (200)
+    }
+
+    @GetMapping("/{id}/items/{itemId}")
+    public ResponseEntity<OrderItem> getOrderItem(@PathVariable Long id, @PathVariable Long itemId) {
+        Optional<OrderItem> optionalItem = orderRepository.findById(id).or(() -> orderArchiveService.findById(id))
+                .flatMap(order -> order.getItems().stream().filter(item -> itemId.equals(item.getId())).findFirst());
+        if (optionalItem.isEmpty()) {
+            return ResponseEntity.notFound().build();   //return status NOT FOUND (404)
+        }
+        return ResponseEntity.ok(optionalItem.get());   //return status OK (200)
+    }
+
+    //adds items to an order (inserted as one batch), the order total becomes the sum of its items and its version is incremented
+    @PostMapping("/{id}/items")
+    public ResponseEntity<List<OrderItem>> addOrderItems(@PathVariable Long id, @RequestBody List<OrderItem> items) {
+        OrderValidator.requireValidItems(items);     //Validation required
+        Optional<List<OrderItem>> added = orderItemService.addItems(id, items);
+        if (added.isEmpty() && orderArchiveService.isArchived(id)) {   //archived orders are read-only
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();  //return status CONFLICT (409)
+        }
+        if (added.isEmpty()) {
+            return ResponseEntity.notFound().build();   //return status NOT FOUND (404)
+        }
+        return ResponseEntity.created(linkTo(methodOn(OrderController.class).getOrderItems(id)).toUri())
+                .body(added.get());     //return the added items with their ids and status CREATED (201)
+    }
+
+    @DeleteMapping("/{id}/items/{itemId}")
+    public ResponseEntity<Void> deleteOrderItem(@PathVariable Long id, @PathVariable Long itemId) {
+        switch (orderItemService.removeItem(id, itemId)) {
+            case DONE:
+                return ResponseEntity.noContent().build();  //return response status NO CONTENT (204)
+            case CONFLICT:  //the last item of an order, its total is the sum of its items
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();  //return response status CONFLICT (409)
+            default:
+                if (orderArchiveService.isArchived(id)) {   //archived orders are read-only
+                    return ResponseEntity.status(HttpStatus.CONFLICT).build();  //return response status CONFLICT (409)
+                }
+                return ResponseEntity.notFound().build();   //return response status NOT FOUND (404)
+        }
+    }
+
+    //status of an order accepted by the asynchronous mode: PENDING until written, then a redirect to the order
+    @GetMapping("/ingestion/{ticket}")
+    public ResponseEntity<IngestionStatus> getIngestionStatus(@PathVariable UUID ticket) {
+        OrderIngestionService ingestion = orderIngestionService.getIfAvailable();
+        Optional<IngestionStatus> status = ingestion == null ? Optional.empty() : ingestion.status(ticket);
+        if (status.isEmpty()) {
+            return ResponseEntity.notFound().build();   //return status NOT FOUND (404)
+        }
+        if (status.get().state() == IngestionStatus.State.WRITTEN) {     //written, point to the order itself
+            return ResponseEntity.status(HttpStatus.SEE_OTHER)
+                    .location(linkTo(methodOn(OrderController.class).getOrderById(status.get().orderId())).toUri())
+                    .body(status.get());    //return status SEE OTHER (303)
+        }
+        return ResponseEntity.ok(status.get());     //return PENDING or FAILED with status OK (200)
+    }
+
+    //keyset pagination: 'after' is the id of the last order of the previous page (cursor)
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orderList = orderRepository.findAll();  //retrieve all orders from orderRepository
-        return ResponseEntity.ok(orderList);    //return response with items listed and OK (200)
+    public ResponseEntity<CollectionModel<Order>> getAllOrders(@RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer size) {
+        int pageSize = pageSize(size);
+        long cursor = after == null ? 0L : after;
+        Slice<Order> page = orderRepository.findPageWithItems(cursor, PageRequest.ofSize(pageSize));  //retrieve one page of orders after the cursor, with their items
+        CollectionModel<Order> orders = CollectionModel.of(page.getContent(),
+                linkTo(methodOn(OrderController.class).getAllOrders(after, pageSize)).withSelfRel());
+        if (page.hasNext()) {   //if there are more orders, link to the next page using the last id as cursor
+            Long nextCursor = page.getContent().get(page.getNumberOfElements() - 1).getId();
+            orders.add(linkTo(methodOn(OrderController.class).getAllOrders(nextCursor, pageSize)).withRel(IanaLinkRelations.NEXT));
+        }
+        //return response with the page of orders and OK (200), or NOT MODIFIED (304) without serializing it when the page is unchanged
+        return ResponseEntity.ok().eTag(pageETag(page.getContent(), page.hasNext())).body(orders);
+    }
+
+    //SEARCH - every filter is optional and maps to an index on the orders table, results are paged and sorted
+    @GetMapping("/search")
+    public ResponseEntity<PagedModel<Order>> searchOrders(@RequestParam(required = false) String customerName,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                          @RequestParam(required = false) BigDecimal minTotal,
+                                                          @RequestParam(required = false) BigDecimal maxTotal,
+                                                          @RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestParam(defaultValue = "id") String sort,
+                                                          @RequestParam(defaultValue = "asc") String direction) {
+        Optional<Sort.Direction> sortDirection = Sort.Direction.fromOptionalString(direction);
+        if (!SEARCH_SORTS.contains(sort) || sortDirection.isEmpty() || page < 0) {
+            return ResponseEntity.badRequest().build();     //return status BAD REQUEST (400) for an unknown sort or page
+        }
+        int pageSize = pageSize(size);
+        Sort sortBy = Sort.by(sortDirection.get(), sort);
+        if (!sort.equals("id")) {   //id as tie breaker so pages are stable
+            sortBy = sortBy.and(Sort.by("id"));
+        }
+        Page<Order> result = orderRepository.findAllWithItems(customerNameIs(customerName)
+                        .and(orderDateBetween(from, to))
+                        .and(totalBetween(minTotal, maxTotal)),
+                PageRequest.of(page, pageSize, sortBy));    //retrieve the page of matching orders, with their items
+        PagedModel<Order> orders = PagedModel.of(result.getContent(),
+                new PagedModel.PageMetadata(result.getSize(), result.getNumber(), result.getTotalElements(), result.getTotalPages()),
+                linkTo(methodOn(OrderController.class).searchOrders(customerName, from, to, minTotal, maxTotal, page, pageSize, sort, direction)).withSelfRel());
+        if (result.hasNext()) {     //if there are more matching orders, link to the next page
+            orders.add(linkTo(methodOn(OrderController.class).searchOrders(customerName, from, to, minTotal, maxTotal, page + 1, pageSize, sort, direction)).withRel(IanaLinkRelations.NEXT));
+        }
+        //return response with the page of matching orders and OK (200), or NOT MODIFIED (304) when the page is unchanged
+        return ResponseEntity.ok().eTag(pageETag(result.getContent(), result.getTotalElements())).body(orders);
+    }
+
+    //stream every order as newline delimited JSON, rows are written as they are read from the database
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public void streamAllOrders(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        orderExportService.writeNdjson(response.getOutputStream());
     }
 
     //UPDATE
+    //version guarded UPDATE statement, the version expected by the client (If-Match header or "version" in the body) makes it conditional
     @PutMapping("{id}")
-    public ResponseEntity<Order> updateOrder(@PathVariable Long id, @RequestBody Order order) {
-        Optional<Order> optionalOrder = orderRepository.findById(id);   //find order with parameterized id
-        if (optionalOrder.isPresent()) {    //if the order exists, update the properties
-            Order eOrder = optionalOrder.get();
-            eOrder.setCustomerName(order.getCustomerName());
-            eOrder.setOrderDate(order.getOrderDate());
-            eOrder.setShippingAddress(order.getShippingAddress());
-            eOrder.setTotal(order.getTotal());
-            Order updatedOrder = orderRepository.save(eOrder);  //save updates order in the repository
-            return ResponseEntity.ok(updatedOrder);     //return updated order with status OK (200)
-        } else {    //else
-            return ResponseEntity.notFound().build();   //return response status NOT FOUND (404)
+    public ResponseEntity<Order> updateOrder(@PathVariable Long id, @RequestBody Order order,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        OrderValidator.requireValid(order);     //Validation required, same rules as a new order
+        Long expectedVersion = ifMatch != null ? parseETag(ifMatch) : order.getVersion();
+        OrderService.Updated result = orderService.update(id, expectedVersion, order);
+        switch (result.outcome()) {
+            case DONE:  //the order was updated, return it as written with its new version
+                return ResponseEntity.ok().eTag(eTag(result.order())).body(result.order());     //return updated order with status OK (200)
+            case CONFLICT:  //the order exists but was changed by someone else
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();   //return response status PRECONDITION FAILED (412)
+            case BUSY:  //changed by others on every attempt
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();   //return status SERVICE UNAVAILABLE (503)
+            case ARCHIVED:  //archived orders are read-only
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();  //return status CONFLICT (409)
+            default:
+                return ResponseEntity.notFound().build();   //return response status NOT FOUND (404)
         }
     }
 
     //DELETE
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteOrder(@PathVariable Long id) {
-        Optional<Order> optionalOrder = orderRepository.findById(id);   //find order by id that is in the parameter
-        if (optionalOrder.isPresent()) {    //if the order exists
-            orderRepository.delete(optionalOrder.get());    //delete from the orderRepository
-            return ResponseEntity.noContent().build();  //return response status NO CONTENT (204)
-        } else {    //else
-            return ResponseEntity.notFound().build();   //return response NOT FOUND (404)
+        switch (orderService.delete(id)) {
+            case DONE:  //the order existed and is deleted
+                return ResponseEntity.noContent().build();  //return response status NO CONTENT (204)
+            case BUSY:  //changed by others on every attempt
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();   //return status SERVICE UNAVAILABLE (503)
+            case ARCHIVED:  //archived orders are read-only
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();  //return status CONFLICT (409)
+            default:
+                return ResponseEntity.notFound().build();   //return response NOT FOUND (404)
+        }
+    }
+
+    //BULK OPERATIONS: every element is validated and gets its own result (status, id, errors) in request order
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createOrders(@RequestBody List<Order> orders,
+                                                              @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws IOException {
+        if (orders.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();   //return status PAYLOAD TOO LARGE (413)
+        }
+        return idempotent(idempotencyKey, "POST /api/orders/batch", orders, () -> orderBatchService.createAll(orders));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> updateOrders(@RequestBody List<Order> orders,
+                                                              @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws IOException {
+        if (orders.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();   //return status PAYLOAD TOO LARGE (413)
+        }
+        return idempotent(idempotencyKey, "PUT /api/orders/batch", orders, () -> orderBatchService.updateAll(orders));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> deleteOrders(@RequestBody List<Long> ids,
+                                                              @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws IOException {
+        if (ids.size() > maxBatchSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();   //return status PAYLOAD TOO LARGE (413)
+        }
+        return idempotent(idempotencyKey, "DELETE /api/orders/batch", ids, () -> orderBatchService.deleteAll(ids));
+    }
+
+    //per element results with status OK (200), run once per Idempotency-Key when the header is sent
+    private ResponseEntity<List<BatchItemResult>> idempotent(String idempotencyKey, String operation, Object request,
+                                                             Supplier<List<BatchItemResult>> batch) throws IOException {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(batch.get());
+        }
+        return idempotencyService.execute(idempotencyKey, operation, request, new TypeReference<List<BatchItemResult>>() { },
+                () -> ResponseEntity.ok(batch.get()));
+    }
+
+    //requested page size, or the default one, never more than the maximum
+    private int pageSize(Integer size) {
+        return (size == null || size < 1) ? defaultPageSize : Math.min(size, maxPageSize);
+    }
+
+    //strong ETag of an order, changes whenever the version is incremented
+    private static String eTag(Order order) {
+        return "\"" + (order.getVersion() == null ? 0L : order.getVersion()) + "\"";
+    }
+
+    //weak ETag of a page: the ids and versions on it plus what decides its links, so any write to one of its orders,
+    //an order appearing or disappearing, or a next page appearing changes it
+    //weak because it identifies the orders, not the bytes (JSON or CBOR, compressed or not)
+    //no Last-Modified on pages, the newest updated_at of a page does not move when one of its orders is deleted
+    private static String pageETag(List<Order> orders, Object extra) {
+        StringBuilder versions = new StringBuilder(orders.size() * 12).append(extra);
+        for (Order order : orders) {
+            versions.append(',').append(order.getId()).append(':').append(order.getVersion());
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    //version from an If-Match ETag, "*" matches any version and a value that is not one of our ETags can never match (-1)
+    private static Long parseETag(String eTag) {
+        String value = eTag.trim();
+        if (value.equals("*")) {
+            return null;
         }
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    //handling exceptions for invalid orders, like validation errors
+    //the violations are sent as JSON: {"errors": [{"field": "customerName", "message": "Customer name is required"}]}
+    @ExceptionHandler(OrderValidationException.class)
+    public ResponseEntity<ValidationErrors> handleValidationExceptions(OrderValidationException ex) {
+        return ResponseEntity.badRequest().body(new ValidationErrors(ex.getViolations()));     //return response with validation errors and status BAD REQUEST (400)
+    }
+
+    //asynchronous mode not accepting orders (starting up or draining for shutdown), another instance or a retry can take it
+    @ExceptionHandler(IngestionStoppedException.class)
+    public ResponseEntity<Void> handleIngestionStopped(IngestionStoppedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();   //return status SERVICE UNAVAILABLE (503)
     }
 
-    //handling exceptions for invalid arguments, like validation errors
-    //retrieve validation errors and reformat at strings
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<String> handleValidationExceptions(MethodArgumentNotValidException ex) {
-        List<String> errors = ex.getBindingResult()
-                .getFieldErrors()
-                .stream()
-                .map(error -> error.getField() + ": " + error.getDefaultMessage())
-                .toList();
-        return ResponseEntity.badRequest().body(errors.toString());     //return response with validation errors and status BAD REQUEST (400)
+    //too many requests are already using the database, shed this one instead of queueing for a connection
+    @ExceptionHandler(RepositoryBusyException.class)
+    public ResponseEntity<Void> handleRepositoryBusy(RepositoryBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();   //return status SERVICE UNAVAILABLE (503)
     }
 
 }
@@ -0,0 +1,57 @@
+package com.testdrivendevelopment.OrderManagementSystem.controller;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.RevenueReport;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderRollupService;
+import com.testdrivendevelopment.OrderManagementSystem.service.RollupsNotReadyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+//revenue reports, answered from the in-memory rollups instead of scanning the orders table
+@RestController
+@RequestMapping("/api/orders/reports")
+public class ReportController {
+    private final OrderRollupService orderRollupService;
+    //longest date range of one daily report
+    private final int maxDays;
+
+    @Autowired
+    ReportController(OrderRollupService orderRollupService, @Value("${orders.reports.max-days:3660}") int maxDays) {
+        this.orderRollupService = orderRollupService;
+        this.maxDays = maxDays;
+    }
+
+    //order count and revenue per day between from and to (both included), defaults to the last 30 days
+    @GetMapping("/daily")
+    public ResponseEntity<RevenueReport> getDailyRevenue(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(29) : from;
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= maxDays) {
+            return ResponseEntity.badRequest().build();     //return status BAD REQUEST (400) for an empty or too long range
+        }
+        return ResponseEntity.ok(orderRollupService.daily(start, end));    //return the report with status OK (200)
+    }
+
+    //order count and revenue of one customer
+    @GetMapping("/customers/{customerName}")
+    public ResponseEntity<CustomerRevenue> getCustomerRevenue(@PathVariable String customerName) {
+        return orderRollupService.customer(customerName)
+                .map(ResponseEntity::ok)    //return status OK (200)
+                .orElseGet(() -> ResponseEntity.notFound().build());    //return status NOT FOUND (404) for a customer without orders
+    }
+
+    //rollups still being built after startup, a retry in a few seconds gets the report
+    @ExceptionHandler(RollupsNotReadyException.class)
+    public ResponseEntity<Void> handleRollupsNotReady(RollupsNotReadyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();   //return status SERVICE UNAVAILABLE (503)
+    }
+}
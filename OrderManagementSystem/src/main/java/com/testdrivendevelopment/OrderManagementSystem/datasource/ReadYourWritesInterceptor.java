@@ -0,0 +1,45 @@
+package com.testdrivendevelopment.OrderManagementSystem.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.ApiClients;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+
+//read your writes with a lagging replica: for a while after a client's successful write, its reads go to the primary too
+//the client is the same as for the rate limit (issued X-API-Key, or the remote address), remembered by this instance only,
+//so with several instances the load balancer has to keep a client on one of them for the window
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+    private static final Set<String> WRITES = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ApiClients apiClients;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesInterceptor(ApiClients apiClients, Duration window, long maxClients) {
+        this.apiClients = apiClients;
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maxClients).build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadReplicaRoutingDataSource.usePrimaryOnly(recentWriters.getIfPresent(apiClients.client(request)) != null);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (WRITES.contains(request.getMethod()) && ex == null && response.getStatus() < 400) {
+            recentWriters.put(apiClients.client(request), Boolean.TRUE);
+        }
+        ReadReplicaRoutingDataSource.usePrimaryOnly(false);
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReadReplicaRoutingDataSource.usePrimaryOnly(false);    //the request continues on another thread
+    }
+}
@@ -0,0 +1,10 @@
+package com.testdrivendevelopment.OrderManagementSystem.ingest;
+
+//thrown by OrderIngestionService.submit before it is started or once it is stopping (draining for shutdown),
+//answered with SERVICE UNAVAILABLE (503) and Retry-After, unlike a full queue (429) it is not the client sending too much
+public class IngestionStoppedException extends RuntimeException {
+
+    public IngestionStoppedException() {
+        super("Order ingestion is not running", null, false, false);    //expected during shutdown, no stack trace to fill in
+    }
+}
@@ -0,0 +1,278 @@
+package com.testdrivendevelopment.OrderManagementSystem.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.testdrivendevelopment.OrderManagementSystem.model.IngestionStatus;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderBatchService;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.exception.DataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//write-behind ingestion of new orders, turned on with orders.ingest.async=true
+//POST /api/orders journals the validated order, queues it and answers 202 right away,
+//a single writer thread drains the queue and inserts the orders in batched transactions
+@Service
+@Lazy(false)    //the writer thread has to run even when the prod profile makes beans lazy
+@ConditionalOnProperty(name = "orders.ingest.async", havingValue = "true")
+public class OrderIngestionService implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestionService.class);
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+
+    private final OrderBatchService orderBatchService;
+    private final OrderJournal journal;
+    private final BlockingQueue<PendingOrder> queue;
+    //free slots in the queue, taken before journaling so a full queue is answered with 429 without touching the disk
+    private final Semaphore capacity;
+    //orders to write before taking new ones from the queue: recovered from the journal, or not written because the
+    //database was unavailable; only touched by the writer thread (and by start before it runs)
+    private final Deque<PendingOrder> retries = new ArrayDeque<>();
+    private int recoveredWithoutSlot;
+    private final int batchSize;
+    //tickets of accepted orders, kept for a while after they are written so clients can follow the status link
+    private final Cache<UUID, IngestionStatus> statuses;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter drained;
+    private final Timer batchTimer;
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public OrderIngestionService(OrderBatchService orderBatchService, ObjectMapper objectMapper, MeterRegistry registry,
+                                 @Value("${orders.ingest.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${orders.ingest.batch-size:500}") int batchSize,
+                                 @Value("${orders.ingest.journal:${orders.data-dir:./data}/ingest.journal}") Path journalPath,
+                                 @Value("${orders.ingest.journal-sync:true}") boolean journalSync) {
+        this.orderBatchService = orderBatchService;
+        this.journal = new OrderJournal(journalPath, objectMapper, journalSync);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.capacity = new Semaphore(queueCapacity);
+        this.batchSize = batchSize;
+        this.statuses = Caffeine.newBuilder().maximumSize(1_000_000).expireAfterWrite(Duration.ofHours(1)).build();
+        this.accepted = Counter.builder("orders.ingest.accepted").description("Orders accepted into the ingestion queue").register(registry);
+        this.rejected = Counter.builder("orders.ingest.rejected").description("Orders rejected because the ingestion queue was full").register(registry);
+        this.drained = Counter.builder("orders.ingest.drained").description("Orders written to the database by the ingestion writer").register(registry);
+        this.batchTimer = Timer.builder("orders.ingest.batch").description("Ingestion writer batch latency").register(registry);
+        Gauge.builder("orders.ingest.queue.depth", queue, BlockingQueue::size).description("Orders waiting in the ingestion queue").register(registry);
+    }
+
+    //ACCEPT - empty when the queue is full (backpressure, the caller answers 429)
+    //IngestionStoppedException when not started yet or stopping (the caller answers 503)
+    public Optional<UUID> submit(Order order) throws IOException {
+        if (!running) {
+            throw new IngestionStoppedException();
+        }
+        if (!capacity.tryAcquire()) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        PendingOrder pendingOrder = new PendingOrder(UUID.randomUUID(), order);
+        try {
+            journal.append(pendingOrder);
+        } catch (IOException e) {
+            capacity.release();
+            throw e;
+        }
+        statuses.put(pendingOrder.ticket(), IngestionStatus.pending(pendingOrder.ticket()));
+        queue.add(pendingOrder);    //cannot fail, a slot was reserved above
+        accepted.increment();
+        return Optional.of(pendingOrder.ticket());
+    }
+
+    public Optional<IngestionStatus> status(UUID ticket) {
+        return Optional.ofNullable(statuses.getIfPresent(ticket));
+    }
+
+    //WRITER - orders left over by a failed write go first, otherwise it waits for the first order,
+    //then takes whatever else is queued up to batchSize
+    private void drain() {
+        long backoff = MIN_BACKOFF_MILLIS;
+        List<PendingOrder> batch = List.of();
+        while (running || !queue.isEmpty() || !retries.isEmpty()) {
+            try {
+                batch = nextBatch();
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                List<PendingOrder> left = write(batch);
+                free(batch.size() - left.size());
+                batch = List.of();
+                if (left.isEmpty()) {
+                    backoff = MIN_BACKOFF_MILLIS;
+                    continue;
+                }
+                for (int i = left.size() - 1; i >= 0; i--) {
+                    retries.addFirst(left.get(i));
+                }
+                if (!running) {
+                    log.warn("Stopping with {} orders not written, they stay in the journal and are replayed at startup",
+                            retries.size() + queue.size());
+                    return;
+                }
+                //the database is unavailable, wait before trying the same orders again (the queue fills up meanwhile, 429)
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | IOException e) {
+                log.error("Ingestion writer failed, the orders stay in the journal and are replayed at startup", e);
+                free(batch.size());
+                batch = List.of();
+            }
+        }
+    }
+
+    //the queue slots of orders that are done with, recovered orders that got no slot at startup are done with first
+    private void free(int orders) {
+        int unreserved = Math.min(orders, recoveredWithoutSlot);
+        recoveredWithoutSlot -= unreserved;
+        capacity.release(orders - unreserved);
+    }
+
+    //an order keeps its queue slot until it is written or rejected, so orders waiting for the database count as queued
+    private List<PendingOrder> nextBatch() throws InterruptedException {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (!retries.isEmpty() && batch.size() < batchSize) {
+            batch.add(retries.pollFirst());
+        }
+        if (batch.isEmpty()) {
+            PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+        }
+        queue.drainTo(batch, batchSize - batch.size());
+        return batch;
+    }
+
+    //one transaction per batch; if it fails on a rejected order the orders are retried one by one so it cannot block the rest
+    //an order leaves the journal once written or rejected (FAILED), the ones that failed otherwise are returned to try again
+    private List<PendingOrder> write(List<PendingOrder> batch) throws IOException {
+        List<Order> orders = new ArrayList<>(batch.size());
+        batch.forEach(pendingOrder -> orders.add(pendingOrder.order()));
+        List<UUID> done = new ArrayList<>(batch.size());
+        List<PendingOrder> left = new ArrayList<>();
+        try {
+            batchTimer.record(() -> orderBatchService.insertAll(orders));
+            for (PendingOrder pendingOrder : batch) {
+                written(pendingOrder);
+                done.add(pendingOrder.ticket());
+            }
+        } catch (RuntimeException batchFailure) {
+            if (!rejected(batchFailure)) {
+                log.warn("Could not write {} ingested orders, trying again", batch.size(), batchFailure);
+                return batch;
+            }
+            for (PendingOrder pendingOrder : batch) {
+                try {
+                    orderBatchService.insertAll(List.of(pendingOrder.order()));
+                    written(pendingOrder);
+                    done.add(pendingOrder.ticket());
+                } catch (RuntimeException e) {
+                    if (!rejected(e)) {
+                        left.add(pendingOrder);
+                        continue;
+                    }
+                    log.error("Ingested order {} was rejected by the database", pendingOrder.ticket(), e);
+                    statuses.put(pendingOrder.ticket(), new IngestionStatus(pendingOrder.ticket(), IngestionStatus.State.FAILED, null));
+                    done.add(pendingOrder.ticket());
+                }
+            }
+        }
+        journal.commit(done);
+        drained.increment(done.size());
+        return left;
+    }
+
+    //an order that can never be written (invalid, or breaking a constraint), anything else (connection, lock timeout) is worth retrying
+    private static boolean rejected(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException
+                    || cause instanceof DataException || cause instanceof OrderValidationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void written(PendingOrder pendingOrder) {
+        statuses.put(pendingOrder.ticket(), new IngestionStatus(pendingOrder.ticket(), IngestionStatus.State.WRITTEN, pendingOrder.order().getId()));
+    }
+
+    //replays the journal before new orders are accepted, then starts the writer
+    @Override
+    public void start() {
+        List<PendingOrder> recovered = journal.recover();
+        for (PendingOrder pendingOrder : recovered) {
+            statuses.put(pendingOrder.ticket(), IngestionStatus.pending(pendingOrder.ticket()));
+            retries.addLast(pendingOrder);  //written before any new order
+            if (!capacity.tryAcquire()) {
+                recoveredWithoutSlot++;     //more recovered orders than the queue holds
+            }
+        }
+        if (!recovered.isEmpty()) {
+            log.info("Replaying {} orders from the ingestion journal", recovered.size());
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("order-ingestion-writer").daemon(true).start(this::drain);
+    }
+
+    //stops accepting and lets the writer drain what is queued
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (writer != null) {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            }
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Could not close the ingestion journal", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    //started before and stopped after the web server, so no request is accepted without a writer
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,145 @@
+package com.testdrivendevelopment.OrderManagementSystem.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+//append-only local journal of accepted orders, so orders answered with 202 survive a crash before they are written
+//  A <ticket> <order json>   an order was accepted
+//  C <ticket>                the order was written to the database (or rejected by it)
+//orders accepted but not committed are replayed at startup (at-least-once)
+class OrderJournal implements AutoCloseable {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final boolean sync;
+    //a lock instead of synchronized so virtual threads are not pinned while waiting for the disk
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private int pending;
+
+    OrderJournal(Path path, ObjectMapper objectMapper, boolean sync) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.sync = sync;
+    }
+
+    //read the orders that were accepted but never committed and start a fresh journal holding only those
+    List<PendingOrder> recover() {
+        lock.lock();
+        try {
+            Map<UUID, Order> accepted = new LinkedHashMap<>();
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("A ") && line.length() > 39) {
+                            try {
+                                accepted.put(UUID.fromString(line.substring(2, 38)), objectMapper.readValue(line.substring(39), Order.class));
+                            } catch (IOException | IllegalArgumentException e) {
+                                //a torn last line from a crash in the middle of a write, it was never acknowledged
+                            }
+                        } else if (line.startsWith("C ") && line.length() >= 38) {
+                            accepted.remove(UUID.fromString(line.substring(2, 38)));
+                        }
+                    }
+                }
+            }
+            List<PendingOrder> recovered = new ArrayList<>(accepted.size());
+            accepted.forEach((ticket, order) -> recovered.add(new PendingOrder(ticket, order)));
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path rewritten = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(rewritten, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (PendingOrder pendingOrder : recovered) {
+                    write(out, acceptLine(pendingOrder));
+                }
+                out.force(true);
+            }
+            Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            pending = recovered.size();
+            return recovered;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover the order journal " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //durably record an accepted order, must return before the client gets its 202
+    void append(PendingOrder pendingOrder) throws IOException {
+        byte[] line = acceptLine(pendingOrder);
+        lock.lock();
+        try {
+            write(channel, line);
+            if (sync) {
+                channel.force(false);
+            }
+            pending++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //mark orders as done, once nothing is pending the journal is truncated so it never grows without bound
+    void commit(Collection<UUID> tickets) throws IOException {
+        StringBuilder lines = new StringBuilder(tickets.size() * 39);
+        for (UUID ticket : tickets) {
+            lines.append("C ").append(ticket).append('\n');
+        }
+        lock.lock();
+        try {
+            pending -= tickets.size();
+            if (pending <= 0) {
+                pending = 0;
+                channel.truncate(0);
+            } else {
+                write(channel, lines.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] acceptLine(PendingOrder pendingOrder) throws IOException {
+        return ("A " + pendingOrder.ticket() + " " + objectMapper.writeValueAsString(pendingOrder.order()) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
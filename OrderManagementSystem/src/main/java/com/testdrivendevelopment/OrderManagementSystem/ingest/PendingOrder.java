@@ -0,0 +1,9 @@
+package com.testdrivendevelopment.OrderManagementSystem.ingest;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+
+import java.util.UUID;
+
+//an accepted order waiting in the ingestion queue, the ticket identifies it until it has a database id
+record PendingOrder(UUID ticket, Order order) {
+}
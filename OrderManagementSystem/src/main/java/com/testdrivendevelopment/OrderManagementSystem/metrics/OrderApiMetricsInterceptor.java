@@ -0,0 +1,59 @@
+package com.testdrivendevelopment.OrderManagementSystem.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+//times every OrderController endpoint as orders.api, tagged by operation (handler method) and outcome
+public class OrderApiMetricsInterceptor implements HandlerInterceptor {
+    public static final String METRIC = "orders.api";
+    private static final String SAMPLE_ATTRIBUTE = OrderApiMetricsInterceptor.class.getName() + ".sample";
+
+    private final MeterRegistry registry;
+
+    public OrderApiMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(SAMPLE_ATTRIBUTE, Timer.start(registry));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(SAMPLE_ATTRIBUTE) instanceof Timer.Sample sample) || !(handler instanceof HandlerMethod handlerMethod)) {
+            return;
+        }
+        sample.stop(Timer.builder(METRIC)
+                .description("Order API request latency")
+                .tag("operation", handlerMethod.getMethod().getName())
+                .tag("outcome", outcome(request.getMethod(), response.getStatus(), ex))
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    //validation-error is what handleValidationExceptions answers with (400)
+    static String outcome(String method, int status, Exception ex) {
+        if (status == 429 || status == 503) {   //load shedding: queue full or too many requests
+            return "rejected";
+        }
+        if (ex != null || status >= 500) {
+            return "error";
+        }
+        return switch (status) {
+            case 304 -> "not-modified";
+            case 400 -> "validation-error";
+            case 404 -> "not-found";
+            case 409, 412 -> "conflict";
+            case 413 -> "too-large";
+            default -> status < 300 ? ("GET".equals(method) ? "found" : "success") : "client-error";
+        };
+    }
+}
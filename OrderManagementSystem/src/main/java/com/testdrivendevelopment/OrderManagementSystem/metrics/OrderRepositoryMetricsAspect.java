@@ -0,0 +1,51 @@
+package com.testdrivendevelopment.OrderManagementSystem.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Optional;
+
+//times every call on the orderRepository bean as orders.repository, tagged by operation (method) and outcome
+//the cache sits inside this timer, so cached findById calls show up as fast "found" calls
+@Aspect
+public class OrderRepositoryMetricsAspect {
+    public static final String METRIC = "orders.repository";
+
+    private final MeterRegistry registry;
+
+    public OrderRepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("bean(orderRepository)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = outcome(result);
+            return result;
+        } finally {
+            sample.stop(Timer.builder(METRIC)
+                    .description("OrderRepository call latency")
+                    .tag("operation", joinPoint.getSignature().getName())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    //lookups report found/not-found, modifying queries report not-found when no row was affected
+    private static String outcome(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? "found" : "not-found";
+        }
+        if (result instanceof Integer rows) {
+            return rows > 0 ? "success" : "not-found";
+        }
+        return "success";
+    }
+}
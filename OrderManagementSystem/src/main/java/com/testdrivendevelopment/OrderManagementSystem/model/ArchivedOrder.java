@@ -0,0 +1,70 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+//an order moved out of the orders table by OrderArchiveService, read-only from then on
+//the order itself is kept as gzip compressed JSON, only what the revenue rollups and the archive purge need are columns
+@Entity
+@Table(name = "orders_archive", indexes = @Index(name = "idx_orders_archive_order_date", columnList = "order_date"))
+public class ArchivedOrder {
+    //the id the order had in the orders table
+    @Id
+    private Long id;
+    @Column(name = "customer_name")
+    private String customerName;
+    @Column(name = "order_date")
+    private LocalDate orderDate;
+    @Column(name = "total_minor", nullable = false)
+    private long totalMinor;
+    //the order's own updated_at, not part of its JSON
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+    @Column(name = "archived_at", nullable = false)
+    private Instant archivedAt;
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private byte[] payload;
+
+    protected ArchivedOrder() { }
+
+    public ArchivedOrder(Order order, byte[] payload, Instant archivedAt) {
+        this.id = order.getId();
+        this.customerName = order.getCustomerName();
+        this.orderDate = order.getOrderDate();
+        this.totalMinor = order.getTotalMinor();
+        this.updatedAt = order.getUpdatedAt();
+        this.archivedAt = archivedAt;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public long getTotalMinor() {
+        return totalMinor;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,18 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+//result of one element of a bulk create/update/delete call, in the same position as the request element
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record BatchItemResult(int index, Long id, int status, List<String> errors) {
+
+    public static BatchItemResult of(int index, Long id, int status) {
+        return new BatchItemResult(index, id, status, List.of());
+    }
+
+    public static BatchItemResult invalid(int index, Long id, List<String> errors) {
+        return new BatchItemResult(index, id, 400, errors);
+    }
+}
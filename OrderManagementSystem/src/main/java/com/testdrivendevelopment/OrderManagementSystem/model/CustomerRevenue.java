@@ -0,0 +1,12 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import java.math.BigDecimal;
+
+//order count and revenue of one customer, also the projection of the GROUP BY query that rebuilds the customer rollup
+public record CustomerRevenue(String customerName, Long orderCount, BigDecimal revenue) {
+
+    //revenue summed in minor units by the database
+    public CustomerRevenue(String customerName, Long orderCount, Long revenueMinor) {
+        this(customerName, orderCount, Money.toDecimal(revenueMinor));
+    }
+}
@@ -0,0 +1,13 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//order count and revenue of one day, also the projection of the GROUP BY query that rebuilds the daily rollup
+public record DailyRevenue(LocalDate day, Long orderCount, BigDecimal revenue) {
+
+    //revenue summed in minor units by the database
+    public DailyRevenue(LocalDate day, Long orderCount, Long revenueMinor) {
+        this(day, orderCount, Money.toDecimal(revenueMinor));
+    }
+}
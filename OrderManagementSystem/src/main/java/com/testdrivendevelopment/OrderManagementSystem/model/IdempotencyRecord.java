@@ -0,0 +1,82 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+//the response of a request sent with an Idempotency-Key, replayed when the same key comes again until it expires
+//the key is the primary key, so two requests can never both claim it
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord implements Persistable<String> {
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    //hash of the operation and the request body, the same key with a different request is refused
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+    @Column(name = "status", nullable = false)
+    private int status;
+    @Column(name = "location", length = 2048)
+    private String location;
+    @Lob
+    @Column(name = "body")
+    private String body;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+    //assigned ids look like existing rows to Spring Data, this makes save() insert (and fail on a duplicate) instead of merge
+    @Transient
+    private boolean persisted;
+
+    protected IdempotencyRecord() { }
+
+    public IdempotencyRecord(String idempotencyKey, String requestHash, Instant createdAt, Instant expiresAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,16 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+//state of an order accepted by the asynchronous ingestion mode, orderId is set once it is written
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestionStatus(UUID ticket, State state, Long orderId) {
+
+    public enum State { PENDING, WRITTEN, FAILED }
+
+    public static IngestionStatus pending(UUID ticket) {
+        return new IngestionStatus(ticket, State.PENDING, null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+//money amounts are stored as a long number of minor units (cents), exact and without boxing
+//the API keeps decimal amounts (100.0, 23.45 or "23.45"), converted here with 2 minor digits
+public final class Money {
+    public static final int SCALE = 2;
+    public static final String DEFAULT_CURRENCY = "USD";
+
+    private Money() { }
+
+    //23.45 -> 2345, an amount with more than 2 decimals is rejected instead of being rounded
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places: " + amount.toPlainString());
+        }
+    }
+
+    //rounded to whole minor units, for bounds of a range rather than stored amounts
+    public static long toMinor(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.movePointRight(SCALE).setScale(0, roundingMode).longValueExact();
+    }
+
+    //2345 -> 23.45
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static BigDecimal toDecimal(Long minor) {
+        return toDecimal(minor == null ? 0L : minor.longValue());
+    }
+}
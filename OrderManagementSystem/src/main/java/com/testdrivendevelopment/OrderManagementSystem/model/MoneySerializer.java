@@ -0,0 +1,36 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+//writes an amount in minor units as the same decimal Money.toDecimal would give (2345 -> 23.45, 100 -> 1.00),
+//digit by digit into the JSON output, so reading an order for a response does not build a BigDecimal and its String
+//CBOR, token buffers and negative amounts go through the BigDecimal, the raw digits are only for JSON text
+public class MoneySerializer extends StdSerializer<Long> {
+    private static final long FACTOR = 100;     //10^Money.SCALE
+
+    public MoneySerializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        long minor = value;
+        if (minor < 0 || !(gen instanceof JsonGeneratorImpl)
+                || gen.isEnabled(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS.mappedFeature())) {
+            gen.writeNumber(Money.toDecimal(minor));
+            return;
+        }
+        //the whole part goes through the generator (separators, field state), the decimals are appended to it
+        gen.writeNumber(minor / FACTOR);
+        long cents = minor % FACTOR;
+        gen.writeRaw('.');
+        gen.writeRaw((char) ('0' + cents / 10));
+        gen.writeRaw((char) ('0' + cents % 10));
+    }
+}
@@ -1,32 +1,81 @@
 package com.testdrivendevelopment.OrderManagementSystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidator;
 import jakarta.persistence.*;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.BatchSize;
+import org.springframework.hateoas.server.core.Relation;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "orders")
+//indexes back the search endpoint: customer (+ date) lookups, date ranges and total ranges
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_date", columnList = "customer_name, order_date"),
+        @Index(name = "idx_orders_order_date", columnList = "order_date"),
+        @Index(name = "idx_orders_total", columnList = "total_minor")
+})
+//the validation annotations document the rules, requests are checked by OrderValidator (same rules and messages)
+@Relation(collectionRelation = "orders")
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    //sequence with a pooled optimizer so Hibernate can assign ids without a round trip per insert and batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
-     @NotEmpty(message = "Customer name is required")
+     @NotEmpty(message = OrderValidator.CUSTOMER_NAME_REQUIRED)
+    @Column(name = "customer_name")
     private String customerName;
-     @PastOrPresent(message = "Order date should be in the past or present")
+     @PastOrPresent(message = OrderValidator.ORDER_DATE_PAST_OR_PRESENT)
+    @Column(name = "order_date")
     private LocalDate orderDate;
-     @NotEmpty(message = "Shipping address is required")
+     @NotEmpty(message = OrderValidator.SHIPPING_ADDRESS_REQUIRED)
     private String shippingAddress;
-     @Positive(message = "Total must be a positive value")
-    private Double total;
+    //exact amount in minor units (cents) as a primitive, the API reads and writes it as a decimal through getTotal/setTotal
+     @Positive(message = OrderValidator.TOTAL_POSITIVE)
+    @Column(name = "total_minor", nullable = false)
+    private long total;
+    //the rollups add totals up, so only one currency is accepted for now
+    @Pattern(regexp = Money.DEFAULT_CURRENCY, message = OrderValidator.CURRENCY_SUPPORTED)
+    @Column(name = "currency", length = 3, nullable = false)
+    private String currency = Money.DEFAULT_CURRENCY;
+    //incremented on every update, used as the ETag of the order
+    @Version
+    private Long version;
+    //when the order was last written, sent as Last-Modified (null for rows written before the column existed)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+    //line items, lazy: a page of orders gets the items of all its orders with one more query (OrderRepository.fetchItems),
+    //anything else touching the items of one order loads those of up to 50 orders of the persistence context at once
+    //the item rows go with their order in the database (ON DELETE CASCADE), so the bulk deletes stay single statements
+    @Valid
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    @BatchSize(size = 50)
+    private List<OrderItem> items = new ArrayList<>();
     public Order() { }
 
-    public Order(String customerName, LocalDate orderDate, String shippingAddress, Double total) {
+    public Order(String customerName, LocalDate orderDate, String shippingAddress, BigDecimal total) {
         this.customerName = customerName;
         this.orderDate = orderDate;
         this.shippingAddress = shippingAddress;
-        this.total = total;
+        this.total = Money.toMinor(total);
+    }
+
+    //total as a decimal literal, 23.45 is stored as exactly 2345 cents
+    public Order(String customerName, LocalDate orderDate, String shippingAddress, double total) {
+        this(customerName, orderDate, shippingAddress, BigDecimal.valueOf(total));
     }
 
     public Long getId() {
@@ -61,12 +110,109 @@ public class Order {
         this.shippingAddress = shippingAddress;
     }
 
-    public Double getTotal() {
+    //a new BigDecimal per call, the JSON "total" is written from the cents by totalJson instead
+    @JsonIgnore
+    public BigDecimal getTotal() {
+        return Money.toDecimal(total);
+    }
+
+    @JsonProperty("total")
+    @JsonSerialize(using = MoneySerializer.class)
+    long totalJson() {
+        return total;
+    }
+
+    //accepts JSON numbers and strings, more than 2 decimals is a bad request
+    @JsonProperty("total")    //kept for reading JSON, the getter is ignored
+    public void setTotal(BigDecimal total) {
+        this.total = Money.toMinor(total);
+        computeTotal();
+    }
+
+    @JsonIgnore
+    public long getTotalMinor() {
         return total;
     }
 
-    public void setTotal(Double total) {
-        this.total = total;
+    @JsonIgnore
+    public void setTotalMinor(long totalMinor) {
+        this.total = totalMinor;
+        computeTotal();
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency == null ? Money.DEFAULT_CURRENCY : currency;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public List<OrderItem> getItems() {
+        return items;
+    }
+
+    //replaces the items (JSON and copies), keeping the collection Hibernate tracks
+    public void setItems(List<OrderItem> items) {
+        for (OrderItem item : this.items) {
+            item.setOrder(null);
+        }
+        this.items.clear();
+        if (items != null) {
+            for (OrderItem item : items) {
+                item.setOrder(this);
+                this.items.add(item);
+            }
+        }
+        computeTotal();
+    }
+
+    public void addItem(OrderItem item) {
+        item.setOrder(this);
+        items.add(item);
+        computeTotal();
+    }
+
+    public void removeItem(OrderItem item) {
+        if (items.remove(item)) {
+            item.setOrder(null);
+            computeTotal();
+        }
+    }
+
+    //an order with items is worth the sum of its items, whatever total was sent with them
+    private void computeTotal() {
+        if (items.isEmpty()) {
+            return;
+        }
+        long sum = 0L;
+        for (OrderItem item : items) {
+            sum += item.getLineTotalMinor();
+        }
+        total = sum;
+    }
+
+    //inserts and entity updates, the single statement updates of OrderRepository set it themselves
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
     }
 
 }
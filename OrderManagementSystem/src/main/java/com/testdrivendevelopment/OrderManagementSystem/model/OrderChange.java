@@ -0,0 +1,16 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+//one change of the order change stream, order is the order after the change (absent for a delete)
+//sequence is the position of the change in the stream, what a consumer sends back as from
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderChange(long sequence, OrderEvent.Type type, Long orderId, Long version, Instant at, @JsonRawValue String order) {
+
+    public static OrderChange of(OrderEvent event) {
+        return new OrderChange(event.getPosition(), event.getType(), event.getOrderId(), event.getVersion(), event.getCreatedAt(), event.getPayload());
+    }
+}
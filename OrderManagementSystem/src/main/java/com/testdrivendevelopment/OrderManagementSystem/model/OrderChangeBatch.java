@@ -0,0 +1,11 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import java.util.List;
+
+//changes in sequence order, next is the sequence to resume from (the last one delivered, or the requested one when empty)
+public record OrderChangeBatch(List<OrderChange> changes, long next) {
+
+    public static OrderChangeBatch empty(long from) {
+        return new OrderChangeBatch(List.of(), from);
+    }
+}
@@ -0,0 +1,84 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+//transactional outbox: one row per order create/update/delete, written in the same transaction as the change
+//the relay gives every committed event its position in the stream (in commit order), consumers of GET /api/orders/changes
+//read by position, rows older than the retention are compacted
+@Entity
+@Table(name = "order_events", indexes = {
+        @Index(name = "idx_order_events_created_at", columnList = "created_at"),
+        @Index(name = "idx_order_events_position", columnList = "stream_position", unique = true)})
+public class OrderEvent {
+    //ARCHIVED: moved to orders_archive, still readable through GET /api/orders/{id} but no longer changes
+    public enum Type { CREATED, UPDATED, DELETED, ARCHIVED }
+
+    @Id
+    //pooled like the order ids: handed out when the event is written, so a transaction that commits late leaves a lower
+    //sequence behind later ones, which is why consumers read by position instead
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_events_seq")
+    @SequenceGenerator(name = "order_events_seq", sequenceName = "order_events_seq", allocationSize = 50)
+    @Column(name = "seq")
+    private Long sequence;
+    //null until the relay sees the event committed
+    @Column(name = "stream_position")
+    private Long position;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 8, nullable = false)
+    private Type type;
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+    @Column(name = "order_version")
+    private Long version;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    //the order as JSON after the change, null for a delete or an archive
+    //a lob: with its items an order has no size limit, a 4000 character column failed the write of a large one
+    @Lob
+    @Column(name = "payload")
+    private String payload;
+
+    protected OrderEvent() { }
+
+    public OrderEvent(Type type, Long orderId, Long version, Instant createdAt, String payload) {
+        this.type = type;
+        this.orderId = orderId;
+        this.version = version;
+        this.createdAt = createdAt;
+        this.payload = payload;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
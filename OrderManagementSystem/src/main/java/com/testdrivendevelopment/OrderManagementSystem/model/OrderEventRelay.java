@@ -0,0 +1,28 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import jakarta.persistence.*;
+
+//the single row that serializes the outbox relay across instances: whoever holds its lock hands out the next stream positions
+@Entity
+@Table(name = "order_event_relay")
+public class OrderEventRelay {
+    public static final int ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+    //last position handed out, the next committed event gets the one after it
+    @Column(name = "last_position", nullable = false)
+    private long lastPosition;
+
+    protected OrderEventRelay() { }
+
+    public OrderEventRelay(long lastPosition) {
+        this.id = ID;
+        this.lastPosition = lastPosition;
+    }
+
+    public long nextPosition() {
+        return ++lastPosition;
+    }
+}
@@ -0,0 +1,123 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidator;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.math.BigDecimal;
+
+//one line of an order: SKU, quantity and unit price, the order total is the sum of quantity x unit price
+@Entity
+@Table(name = "order_items", indexes = @Index(name = "idx_order_items_order", columnList = "order_id"))
+public class OrderItem {
+    @Id
+    //pooled sequence of its own, allocated like the orders one, so the items of an order (or of a bulk call) are inserted as JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+    //owning side of Order.items, never serialized, items are always read through their order
+    //the foreign key deletes the items of a deleted order, including the single statement deletes of OrderRepository
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Order order;
+    @NotEmpty(message = OrderValidator.SKU_REQUIRED)
+    @Column(name = "sku", nullable = false)
+    private String sku;
+    @Positive(message = OrderValidator.QUANTITY_POSITIVE)
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+    //minor units (cents) like Order.total, read and written as a decimal through getUnitPrice/setUnitPrice
+    @Positive(message = OrderValidator.UNIT_PRICE_POSITIVE)
+    @Column(name = "unit_price_minor", nullable = false)
+    private long unitPrice;
+
+    public OrderItem() { }
+
+    public OrderItem(String sku, int quantity, BigDecimal unitPrice) {
+        this.sku = sku;
+        this.quantity = quantity;
+        this.unitPrice = Money.toMinor(unitPrice);
+    }
+
+    public OrderItem(String sku, int quantity, double unitPrice) {
+        this(sku, quantity, BigDecimal.valueOf(unitPrice));
+    }
+
+    //unmanaged copy, see OrderItemRepository.findCopiesByOrderId
+    public OrderItem(Long id, String sku, int quantity, long unitPrice) {
+        this.id = id;
+        this.sku = sku;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    //like Order.getTotal, the JSON "unitPrice" is written from the cents by unitPriceJson
+    @JsonIgnore
+    public BigDecimal getUnitPrice() {
+        return Money.toDecimal(unitPrice);
+    }
+
+    @JsonProperty("unitPrice")
+    @JsonSerialize(using = MoneySerializer.class)
+    long unitPriceJson() {
+        return unitPrice;
+    }
+
+    //accepts JSON numbers and strings, more than 2 decimals is a bad request
+    @JsonProperty("unitPrice")    //kept for reading JSON, the getter is ignored
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = Money.toMinor(unitPrice);
+    }
+
+    @JsonIgnore
+    public long getUnitPriceMinor() {
+        return unitPrice;
+    }
+
+    //quantity x unit price in minor units
+    @JsonIgnore
+    public long getLineTotalMinor() {
+        return quantity * unitPrice;
+    }
+}
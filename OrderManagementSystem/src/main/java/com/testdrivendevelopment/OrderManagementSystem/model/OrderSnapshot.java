@@ -0,0 +1,11 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import java.time.LocalDate;
+
+//the columns of an order the revenue rollups depend on, read without loading the entity (total in minor units)
+public record OrderSnapshot(Long id, String customerName, LocalDate orderDate, Long totalMinor, Long version) {
+
+    public static OrderSnapshot of(Order order) {
+        return new OrderSnapshot(order.getId(), order.getCustomerName(), order.getOrderDate(), order.getTotalMinor(), order.getVersion());
+    }
+}
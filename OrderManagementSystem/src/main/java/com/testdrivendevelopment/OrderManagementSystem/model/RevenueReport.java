@@ -0,0 +1,9 @@
+package com.testdrivendevelopment.OrderManagementSystem.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+//order count and revenue over a date range, with the per day breakdown
+public record RevenueReport(LocalDate from, LocalDate to, long orderCount, BigDecimal revenue, List<DailyRevenue> days) {
+}
@@ -0,0 +1,28 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//who a request comes from, for the rate limit and read-your-writes: the X-API-Key header when it is one of the issued keys
+//(orders.api-keys), otherwise the remote address, so a client cannot get a fresh budget by sending a made up key
+@Component
+public class ApiClients {
+    public static final String HEADER = "X-API-Key";
+
+    private final Set<String> keys;
+
+    @Autowired
+    public ApiClients(@Value("${orders.api-keys:}") Set<String> keys) {
+        this.keys = keys.stream().map(String::trim).filter(key -> !key.isEmpty()).collect(Collectors.toUnmodifiableSet());
+    }
+
+    public String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(HEADER);
+        return (apiKey != null && keys.contains(apiKey)) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,5 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+//how many requests a client can burst (capacity) and make per second on average (refill) within one budget
+public record Budget(String name, int capacity, double refillPerSecond) {
+}
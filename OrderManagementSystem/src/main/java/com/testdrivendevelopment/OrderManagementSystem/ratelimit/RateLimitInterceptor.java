@@ -0,0 +1,80 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+//per client rate limit on the order API, answered with TOO MANY REQUESTS (429) and Retry-After before the handler runs
+//the client is the issued X-API-Key of the request, or its remote address (ApiClients)
+//operations that read or write many rows (listing, search, export, bulk calls) draw from a separate, smaller budget,
+//so a client paging through everything cannot use up the budget of its own single order writes
+//buckets live in a bounded cache (concurrent hash map underneath), a client idle long enough to be evicted would have a full bucket anyway
+public class RateLimitInterceptor implements HandlerInterceptor {
+    public static final String METRIC = "orders.ratelimit";
+
+    private final ApiClients apiClients;
+    private final Limit standard;
+    private final Limit expensive;
+    private final Set<String> expensiveOperations;
+
+    public RateLimitInterceptor(MeterRegistry registry, ApiClients apiClients, Budget standard, Budget expensive,
+                                Set<String> expensiveOperations, long maxClients, Duration idleTimeout) {
+        this.apiClients = apiClients;
+        this.standard = new Limit(registry, standard, maxClients, idleTimeout);
+        this.expensive = new Limit(registry, expensive, maxClients, idleTimeout);
+        this.expensiveOperations = expensiveOperations;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        Limit limit = expensiveOperations.contains(handlerMethod.getMethod().getName()) ? expensive : standard;
+        long waitNanos = limit.tryAcquire(apiClients.client(request), System.nanoTime());
+        if (waitNanos == 0) {
+            return true;
+        }
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());   //return status TOO MANY REQUESTS (429)
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L))));
+        return false;
+    }
+
+    //one budget: a bucket per client plus its metrics
+    private static final class Limit {
+        private final Budget budget;
+        private final Cache<String, TokenBucket> buckets;
+        private final Counter allowed;
+        private final Counter rejected;
+
+        Limit(MeterRegistry registry, Budget budget, long maxClients, Duration idleTimeout) {
+            this.budget = budget;
+            this.buckets = Caffeine.newBuilder().maximumSize(maxClients).expireAfterAccess(idleTimeout).build();
+            this.allowed = Counter.builder(METRIC).description("Order API requests checked by the rate limiter")
+                    .tag("budget", budget.name()).tag("outcome", "allowed").register(registry);
+            this.rejected = Counter.builder(METRIC).description("Order API requests checked by the rate limiter")
+                    .tag("budget", budget.name()).tag("outcome", "rejected").register(registry);
+            Gauge.builder(METRIC + ".clients", buckets, Cache::estimatedSize).description("Clients with a rate limit bucket")
+                    .tag("budget", budget.name()).register(registry);
+        }
+
+        long tryAcquire(String client, long nowNanos) {
+            TokenBucket bucket = buckets.get(client, key -> new TokenBucket(budget.capacity(), budget.refillPerSecond(), nowNanos));
+            long waitNanos = bucket.tryAcquire(nowNanos);
+            (waitNanos == 0 ? allowed : rejected).increment();
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+//thrown instead of waiting for a database connection when too many requests are already using OrderRepository,
+//answered with SERVICE UNAVAILABLE (503) and Retry-After
+public class RepositoryBusyException extends RuntimeException {
+
+    public RepositoryBusyException() {
+        super("Too many concurrent order requests", null, false, false);    //expected under load, no stack trace to fill in
+    }
+}
@@ -0,0 +1,67 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+//admission control in front of the database: at most maxConcurrent request threads use it at once,
+//set below the connection pool size, so a burst is shed with 503 after a short wait instead of queueing on the pool
+//until every request times out
+//the permit is taken at the outermost call into the order services or repositories and held until it returns, i.e. for the
+//whole transaction and the connection it holds (a service calling a repository does not take a second one), the aspect runs
+//outside the transaction advice so a request never waits for a permit while holding a connection
+//background work (ingestion writer, rollup rebuild, scheduled jobs) is not limited
+@Aspect
+public class RepositoryConcurrencyLimiter implements Ordered {
+    public static final String METRIC = "orders.repository.concurrency";
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+    //set while this thread holds a permit
+    private final ThreadLocal<Boolean> admitted = new ThreadLocal<>();
+
+    public RepositoryConcurrencyLimiter(MeterRegistry registry, int maxConcurrent, Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        Gauge.builder(METRIC + ".active", permits, semaphore -> maxConcurrent - semaphore.availablePermits())
+                .description("Request threads using OrderRepository").register(registry);
+        Gauge.builder(METRIC + ".limit", () -> maxConcurrent)
+                .description("Request threads allowed to use OrderRepository at once").register(registry);
+        this.rejected = Counter.builder(METRIC + ".rejected")
+                .description("Requests shed because OrderRepository was at its concurrency limit").register(registry);
+    }
+
+    @Around("bean(orderRepository) || bean(orderItemRepository) || bean(orderService) || bean(orderBatchService) "
+            + "|| bean(orderItemService) || bean(orderExportService) || bean(orderArchiveService) || bean(idempotencyService)")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (RequestContextHolder.getRequestAttributes() == null || admitted.get() != null) {     //not a request thread, or nested call
+            return joinPoint.proceed();
+        }
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            rejected.increment();
+            throw new RepositoryBusyException();
+        }
+        admitted.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            admitted.remove();
+            permits.release();
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;  //around @Transactional, which has the lowest precedence
+    }
+}
@@ -0,0 +1,33 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//token bucket of one client, kept as a single "theoretical arrival time" (GCRA) so taking a token is one CAS, no lock:
+//every request pushes the time forward by one refill interval, and a request that would push it more than
+//capacity intervals past now is refused (the bucket is empty), how far past says how long until the next token
+public final class TokenBucket {
+    private final long interval;    //nanos to refill one token
+    private final long capacity;    //nanos of a full bucket (capacity tokens)
+    private final AtomicLong arrival;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.interval = Math.max(1L, (long) (1_000_000_000L / refillPerSecond));
+        this.capacity = interval * Math.max(1, capacity);
+        this.arrival = new AtomicLong(nowNanos);    //starts full
+    }
+
+    //takes one token: 0 when taken, otherwise the nanos until one is available
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = arrival.get();
+            long next = (current - nowNanos < 0 ? nowNanos : current) + interval;
+            long ahead = next - nowNanos - capacity;
+            if (ahead > 0) {
+                return ahead;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.ArchivedOrder;
+import com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    //archived orders still count in the revenue rollups, same GROUP BYs as OrderRepository
+    @Query("select new com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue(a.orderDate, count(a), sum(a.totalMinor)) "
+            + "from ArchivedOrder a where a.orderDate is not null group by a.orderDate")
+    List<DailyRevenue> sumByDay();
+
+    @Query("select new com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue(a.customerName, count(a), sum(a.totalMinor)) "
+            + "from ArchivedOrder a where a.customerName is not null group by a.customerName")
+    List<CustomerRevenue> sumByCustomer();
+
+    //ids of the given orders that were archived, the bulk endpoints report them as 409 instead of 404
+    @Query("select a.id from ArchivedOrder a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+}
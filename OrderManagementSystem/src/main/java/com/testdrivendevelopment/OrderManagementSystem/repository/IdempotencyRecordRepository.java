@@ -0,0 +1,34 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    //an expired key is removed before it is claimed again
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from IdempotencyRecord r where r.idempotencyKey = :idempotencyKey and r.expiresAt <= :now")
+    int deleteIfExpired(@Param("idempotencyKey") String idempotencyKey, @Param("now") Instant now);
+
+    //the response of the claimed key, an update by key rather than a change to the claimed entity: the bulk calls
+    //clear the persistence context while they run, which detaches it
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r set r.status = :status, r.location = :location, r.body = :body where r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("idempotencyKey") String idempotencyKey, @Param("status") int status,
+                 @Param("location") String location, @Param("body") String body);
+
+    //TTL expiry, uses the expires_at index
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
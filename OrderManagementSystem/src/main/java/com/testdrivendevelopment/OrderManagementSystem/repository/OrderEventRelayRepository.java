@@ -0,0 +1,23 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEventRelay;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderEventRelayRepository extends JpaRepository<OrderEventRelay, Integer> {
+    //held until the relay's transaction commits, one relay at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from OrderEventRelay r where r.id = :id")
+    Optional<OrderEventRelay> findForUpdate(@Param("id") Integer id);
+
+    //a query of its own rather than existsById, which is read-only and could be sent to a replica
+    @Query("select r.lastPosition from OrderEventRelay r where r.id = :id")
+    Optional<Long> findLastPosition(@Param("id") Integer id);
+}
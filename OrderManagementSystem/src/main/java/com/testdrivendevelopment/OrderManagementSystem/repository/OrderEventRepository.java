@@ -0,0 +1,37 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+    //next events after a position, a range scan of the position index
+    List<OrderEvent> findByPositionGreaterThanOrderByPositionAsc(Long after, Pageable pageable);
+
+    //committed events the relay has not positioned yet, oldest first
+    List<OrderEvent> findByPositionIsNullOrderBySequenceAsc(Pageable pageable);
+
+    @Query("select min(e.position) from OrderEvent e")
+    Long findMinPosition();
+
+    @Query("select max(e.sequence) from OrderEvent e")
+    Long findMaxSequence();
+
+    //last event positioned before the given time, everything up to it can be compacted
+    @Query("select max(e.position) from OrderEvent e where e.createdAt < :before")
+    Long findMaxPositionBefore(@Param("before") Instant before);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from OrderEvent e where e.position <= :position")
+    int deleteThrough(@Param("position") Long position);
+}
@@ -0,0 +1,18 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+//items are written through their order (cascade from Order.items), this is for reads that do not need the order
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+    //the items of an order as plain objects, not managed: they can be put on a detached order without being written back
+    @Query("select new com.testdrivendevelopment.OrderManagementSystem.model.OrderItem(i.id, i.sku, i.quantity, i.unitPrice) "
+            + "from OrderItem i where i.order.id = :orderId order by i.id")
+    List<OrderItem> findCopiesByOrderId(@Param("orderId") Long orderId);
+}
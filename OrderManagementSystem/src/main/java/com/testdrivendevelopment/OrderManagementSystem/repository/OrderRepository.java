@@ -1,8 +1,181 @@
 package com.testdrivendevelopment.OrderManagementSystem.repository;
 
 import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import jakarta.persistence.LockModeType;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository("orderRepository")
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+    //cache of orders by id, bounded and expired by spring.cache.caffeine.spec
+    String ORDERS_CACHE = "orders";
+
+    //READ-THROUGH: found orders are cached by id, misses are not cached
+    //the items come in the same query (left join), a cached order never has to load them later
+    //a miss reads the primary (not a read-only transaction): loaded from a lagging replica, the copy cached right after
+    //a write could be the old order, served from the cache to the writer too until it expires
+    @Override
+    @Cacheable(cacheNames = ORDERS_CACHE, unless = "#result == null")
+    @EntityGraph(attributePaths = "items")
+    @Transactional
+    Optional<Order> findById(Long id);
+
+    //WRITE-THROUGH INVALIDATION: every write evicts the cached copy so the next read goes to the database
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0.id", condition = "#p0.id != null")
+    <S extends Order> S save(S order);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0.id", condition = "#p0.id != null")
+    <S extends Order> S saveAndFlush(S order);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    <S extends Order> List<S> saveAll(Iterable<S> orders);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0.id", condition = "#p0.id != null")
+    void delete(Order order);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0")
+    void deleteById(Long id);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    void deleteAllById(Iterable<? extends Long> ids);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    void deleteAll(Iterable<? extends Order> orders);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    void deleteAll();
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    void deleteAllInBatch(Iterable<Order> orders);
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    void deleteAllInBatch();
+
+    @Override
+    @CacheEvict(cacheNames = ORDERS_CACHE, allEntries = true)
+    void deleteAllByIdInBatch(Iterable<Long> ids);
+
+    //keyset pagination: next page of orders after the given id (cursor), one extra row is read to know if there is a next page
+    //read-only like the inherited finders, so it is served by the replica when there is one
+    @Transactional(readOnly = true)
+    Slice<Order> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    //up to the page size of orders after the given id, without the extra row or count (export chunks)
+    @Transactional(readOnly = true)
+    List<Order> findByIdGreaterThan(Long afterId, Pageable pageable);
+
+    //PAGES WITH ITEMS, two queries whatever the page size: the page of orders, then the items of all of them
+    //(fetching the items in the paged query itself would make Hibernate page in memory, and one query per order is N+1)
+    @Transactional(readOnly = true)
+    default Slice<Order> findPageWithItems(Long afterId, Pageable pageable) {
+        Slice<Order> page = findByIdGreaterThanOrderByIdAsc(afterId, pageable);
+        fetchItems(page.getContent());
+        return page;
+    }
+
+    @Transactional(readOnly = true)
+    default Page<Order> findAllWithItems(Specification<Order> spec, Pageable pageable) {
+        Page<Order> page = findAll(spec, pageable);
+        fetchItems(page.getContent());
+        return page;
+    }
+
+    //initializes the items of orders loaded in the current transaction with one join query
+    default void fetchItems(List<Order> orders) {
+        if (!orders.isEmpty()) {
+            fetchItemsByIdIn(orders.stream().map(Order::getId).toList());
+        }
+    }
+
+    //the orders are already in the persistence context, the join fills in their items
+    @Query("select o from Order o left join fetch o.items where o.id in :ids")
+    List<Order> fetchItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //ids of the given orders that exist, used by the bulk endpoints to report 404 per element with a single query
+    @Query("select o.id from Order o where o.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    //SINGLE STATEMENT WRITES: no load, no dirty check, the affected row count tells if the order existed
+    //UPDATE with optimistic locking, returns 0 when the order does not exist or was changed since the given version
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0")
+    @Query("update Order o set o.customerName = :customerName, o.orderDate = :orderDate, o.shippingAddress = :shippingAddress, "
+            + "o.total = :total, o.currency = :currency, o.updatedAt = :updatedAt, o.version = o.version + 1 "
+            + "where o.id = :id and o.version = :version")
+    int updateByIdAndVersion(@Param("id") Long id, @Param("version") Long version, @Param("customerName") String customerName,
+                             @Param("orderDate") LocalDate orderDate, @Param("shippingAddress") String shippingAddress,
+                             @Param("total") long totalMinor, @Param("currency") String currency,
+                             @Param("updatedAt") Instant updatedAt);
+
+    //VERSION for rows that have none (written before the column existed), returns 0 when the order already has one
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0")
+    @Query("update Order o set o.version = 0 where o.id = :id and o.version is null")
+    int initializeVersion(@Param("id") Long id);
+
+    //DELETE with optimistic locking, returns 0 when the order does not exist or was changed since the given version
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @CacheEvict(cacheNames = ORDERS_CACHE, key = "#p0")
+    @Query("delete from Order o where o.id = :id and o.version = :version")
+    int deleteByIdAndVersion(@Param("id") Long id, @Param("version") Long version);
+
+    //ROLLUPS: the columns the revenue rollups need, without hydrating the entity
+    @Query("select new com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot(o.id, o.customerName, o.orderDate, o.total, o.version) "
+            + "from Order o where o.id = :id")
+    Optional<OrderSnapshot> findSnapshotById(@Param("id") Long id);
+
+    //orders about to be updated or deleted in bulk, locked so their version and rollup contribution cannot change
+    //before the write, a concurrent change waits instead of failing the whole batch with an optimistic lock error
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id in :ids")
+    List<Order> findAllForWrite(@Param("ids") Collection<Long> ids);
+
+    //ARCHIVAL: the oldest orders before the cutoff, through the order_date index, locked only until their batch is moved
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.orderDate < :cutoff order by o.orderDate, o.id")
+    List<Order> findArchivable(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    //one GROUP BY in the database per rollup, only run when the rollups are rebuilt at startup (sums of minor units, exact)
+    @Query("select new com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue(o.orderDate, count(o), sum(o.total)) "
+            + "from Order o where o.orderDate is not null group by o.orderDate")
+    List<DailyRevenue> sumByDay();
+
+    @Query("select new com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue(o.customerName, count(o), sum(o.total)) "
+            + "from Order o where o.customerName is not null group by o.customerName")
+    List<CustomerRevenue> sumByCustomer();
 }
@@ -0,0 +1,47 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.Money;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+//search filters for OrderRepository, each one maps to an indexed column of the orders table
+//a null argument means "no filter" so the filters can be combined with Specification.where(..).and(..)
+public final class OrderSpecifications {
+
+    private OrderSpecifications() { }
+
+    public static Specification<Order> customerNameIs(String customerName) {
+        return (root, query, cb) -> customerName == null ? null : cb.equal(root.get("customerName"), customerName);
+    }
+
+    public static Specification<Order> orderDateBetween(LocalDate from, LocalDate to) {
+        return (root, query, cb) -> {
+            if (from != null && to != null) {
+                return cb.between(root.<LocalDate>get("orderDate"), from, to);
+            } else if (from != null) {
+                return cb.greaterThanOrEqualTo(root.<LocalDate>get("orderDate"), from);
+            } else if (to != null) {
+                return cb.lessThanOrEqualTo(root.<LocalDate>get("orderDate"), to);
+            }
+            return null;
+        };
+    }
+
+    //bounds are decimal amounts, compared with the total in minor units (rounded inwards)
+    public static Specification<Order> totalBetween(BigDecimal min, BigDecimal max) {
+        return (root, query, cb) -> {
+            if (min != null && max != null) {
+                return cb.between(root.<Long>get("total"), Money.toMinor(min, RoundingMode.CEILING), Money.toMinor(max, RoundingMode.FLOOR));
+            } else if (min != null) {
+                return cb.greaterThanOrEqualTo(root.<Long>get("total"), Money.toMinor(min, RoundingMode.CEILING));
+            } else if (max != null) {
+                return cb.lessThanOrEqualTo(root.<Long>get("total"), Money.toMinor(max, RoundingMode.FLOOR));
+            }
+            return null;
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.testdrivendevelopment.OrderManagementSystem.model.IdempotencyRecord;
+import com.testdrivendevelopment.OrderManagementSystem.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//Idempotency-Key support for the create endpoints: the first request with a key runs and its response is stored,
+//a repeated request gets the stored response back without running again
+//  - recent responses are answered from memory, older ones from the idempotency_keys table until they expire
+//  - concurrent requests with the same key wait for the first one instead of running (one future per key, no global lock)
+//  - the key row is inserted in the same transaction as the orders, so even two instances cannot both write
+@Service
+public class IdempotencyService {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    //the request to run once, same signature as the controller methods
+    @FunctionalInterface
+    public interface Call<T> {
+        ResponseEntity<T> call() throws IOException;
+    }
+
+    private record Completed(String requestHash, ResponseEntity<?> response) { }
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, Completed> recent;
+    private final ConcurrentMap<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${orders.idempotency.ttl:PT24H}") Duration ttl,
+                       @Value("${orders.idempotency.cache-size:100000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.recent = Caffeine.newBuilder().maximumSize(cacheSize).expireAfterWrite(ttl).build();
+    }
+
+    //runs the call at most once per key, operation + request identify what the key was used for
+    public <T> ResponseEntity<T> execute(String key, String operation, Object request, TypeReference<T> responseType, Call<T> call) throws IOException {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();     //return status BAD REQUEST (400) for an unusable key
+        }
+        String requestHash = hash(operation, request);
+        while (true) {
+            Completed completed = recent.getIfPresent(key);
+            if (completed != null) {
+                return replay(completed, requestHash);
+            }
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {  //same key in progress, wait for its response
+                try {
+                    return replay(running.join(), requestHash);
+                } catch (CompletionException | CancellationException e) {
+                    continue;   //the first request failed without storing anything, try again
+                }
+            }
+            try {
+                Optional<IdempotencyRecord> stored = findStored(key)
+                        .filter(record -> record.getExpiresAt().isAfter(Instant.now()));
+                if (stored.isPresent()) {
+                    completed = remember(key, stored.get(), responseType);
+                    mine.complete(completed);
+                    return replay(completed, requestHash);
+                }
+                ResponseEntity<T> response = claimAndRun(key, requestHash, call);
+                completed = new Completed(requestHash, response);
+                if (storable(response.getStatusCode())) {
+                    recent.put(key, completed);
+                }
+                mine.complete(completed);
+                return response;
+            } catch (DataIntegrityViolationException e) {   //claimed by another instance meanwhile, its response is committed now
+                IdempotencyRecord winner = findStored(key).orElseThrow(() -> e);
+                completed = remember(key, winner, responseType);
+                mine.complete(completed);
+                return replay(completed, requestHash);
+            } catch (IOException | RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                //any other way out (the call's own constraint violation rethrown above, a stored body that fails to read)
+                //must still wake the requests waiting on this key, they try again
+                if (!mine.isDone()) {
+                    mine.completeExceptionally(new IllegalStateException("Request with idempotency key failed"));
+                }
+                inFlight.remove(key, mine);
+            }
+        }
+    }
+
+    //inserts the key, runs the call and stores its response in one transaction
+    //responses worth retrying (429, 5xx) roll the claim back so the next request with the key runs again
+    private <T> ResponseEntity<T> claimAndRun(String key, String requestHash, Call<T> call) throws IOException {
+        try {
+            return transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                idempotencyRecordRepository.deleteIfExpired(key, now);
+                idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, requestHash, now, now.plus(ttl)));
+                try {
+                    ResponseEntity<T> response = call.call();
+                    if (!storable(response.getStatusCode())) {
+                        status.setRollbackOnly();
+                        return response;
+                    }
+                    URI location = response.getHeaders().getLocation();
+                    idempotencyRecordRepository.complete(key, response.getStatusCode().value(), location == null ? null : location.toString(),
+                            response.getBody() == null ? null : objectMapper.writeValueAsString(response.getBody()));
+                    return response;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    //read in a read-write transaction so it goes to the primary, a lagging replica could miss a key that was just claimed
+    private Optional<IdempotencyRecord> findStored(String key) {
+        return transactionTemplate.execute(status -> idempotencyRecordRepository.findById(key));
+    }
+
+    private <T> Completed remember(String key, IdempotencyRecord record, TypeReference<T> responseType) throws IOException {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(record.getStatus());
+        if (record.getLocation() != null) {
+            response.location(URI.create(record.getLocation()));
+        }
+        T body = record.getBody() == null ? null : objectMapper.readValue(record.getBody(), responseType);
+        Completed completed = new Completed(record.getRequestHash(), response.body(body));
+        recent.put(key, completed);
+        return completed;
+    }
+
+    //the stored response marked as a replay, or 422 when the key was used for a different request
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<T> replay(Completed completed, String requestHash) {
+        if (!completed.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();  //return status UNPROCESSABLE ENTITY (422)
+        }
+        ResponseEntity<T> response = (ResponseEntity<T>) completed.response();
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    private static boolean storable(HttpStatusCode status) {
+        return !status.is5xxServerError() && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private String hash(String operation, Object request) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //TTL expiry of the stored keys, one delete on the expires_at index
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval:PT10M}", initialDelayString = "${orders.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testdrivendevelopment.OrderManagementSystem.model.ArchivedOrder;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+//moves orders older than orders.archive.age out of the orders table into orders_archive, so the hot table and its
+//indexes only hold the orders that are still read and written
+//  - one short transaction per batch: lock the oldest batch, insert it into the archive, delete it from orders
+//  - the archive keeps each order as gzip compressed JSON, GET /api/orders/{id} falls back to it on a miss
+//  - moved orders leave the orders cache and get an ARCHIVED event in the outbox, in the transaction of their batch
+//  - archived orders keep counting in the revenue rollups, but are read-only (update/delete answer 409)
+@Service
+public class OrderArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderEventService orderEventService;
+    private final Cache ordersCache;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Period age;
+    private final int batchSize;
+
+    @Autowired
+    OrderArchiveService(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository,
+                        OrderEventService orderEventService, CacheManager cacheManager, EntityManager entityManager, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                        @Value("${orders.archive.age:P365D}") Period age,
+                        @Value("${orders.archive.batch-size:500}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderEventService = orderEventService;
+        this.ordersCache = cacheManager.getCache(OrderRepository.ORDERS_CACHE);
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.age = age;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.archive.interval:PT1H}", initialDelayString = "${orders.archive.interval:PT1H}")
+    public void archive() {
+        archiveBefore(LocalDate.now().minus(age));
+    }
+
+    //moves every order dated before the cutoff, returns how many were moved
+    public int archiveBefore(LocalDate cutoff) {
+        int archived = 0;
+        while (true) {
+            List<Long> moved = transactionTemplate.execute(status -> moveBatch(cutoff));
+            //after the commit: evicted earlier, a read could cache the order again before its delete is visible
+            moved.forEach(ordersCache::evict);
+            archived += moved.size();
+            if (moved.size() < batchSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} orders dated before {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    //returns the ids of the moved orders
+    private List<Long> moveBatch(LocalDate cutoff) {
+        List<Order> orders = orderRepository.findArchivable(cutoff, PageRequest.ofSize(batchSize));
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        orderRepository.fetchItems(orders);     //the items go into the archived JSON, one query for the batch
+        Instant now = Instant.now();
+        for (Order order : orders) {
+            entityManager.persist(new ArchivedOrder(order, compress(order), now));
+            orderEventService.archived(order.getId(), order.getVersion());
+        }
+        entityManager.flush();  //the archive rows go in before the orders go away
+        List<Long> ids = orders.stream().map(Order::getId).toList();
+        orderRepository.deleteAllByIdInBatch(ids);
+        entityManager.clear();
+        return ids;
+    }
+
+    //READ - the archived order as it was when it was moved
+    public Optional<Order> findById(Long id) {
+        return archivedOrderRepository.findById(id).map(this::decompress);
+    }
+
+    //the write endpoints answer 409 for an archived order instead of 404, it is still readable
+    public boolean isArchived(Long id) {
+        return archivedOrderRepository.existsById(id);
+    }
+
+    private byte[] compress(Order order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, order);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Order decompress(ArchivedOrder archived) {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(archived.getPayload()))) {
+            Order order = objectMapper.readValue(in, Order.class);
+            order.setUpdatedAt(archived.getUpdatedAt());
+            return order;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.BatchItemResult;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.validation.FieldViolation;
+import com.testdrivendevelopment.OrderManagementSystem.validation.OrderValidator;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class OrderBatchService {
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final EntityManager entityManager;
+    private final OrderRollupService orderRollupService;
+    private final OrderEventService orderEventService;
+    //same value as hibernate.jdbc.batch_size, the persistence context is flushed and cleared every chunk
+    private final int chunkSize;
+
+    @Autowired
+    OrderBatchService(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository, EntityManager entityManager,
+                      OrderRollupService orderRollupService, OrderEventService orderEventService,
+                      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.entityManager = entityManager;
+        this.orderRollupService = orderRollupService;
+        this.orderEventService = orderEventService;
+        this.chunkSize = chunkSize;
+    }
+
+    //CREATE - every valid order is inserted, invalid ones are reported with their validation errors
+    @Transactional
+    public List<BatchItemResult> createAll(List<Order> orders) {
+        List<BatchItemResult> results = new ArrayList<>(orders.size());
+        List<Order> persisted = new ArrayList<>(orders.size());
+        List<Integer> persistedIndexes = new ArrayList<>(orders.size());
+        int pending = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            List<String> errors = order == null ? List.of("order: Order is required") : validate(order);
+            if (!errors.isEmpty()) {
+                results.add(BatchItemResult.invalid(i, null, errors));
+                continue;
+            }
+            order.setId(null);  //ids are always generated by the sequence
+            entityManager.persist(order);
+            persisted.add(order);
+            persistedIndexes.add(i);
+            results.add(null);  //filled in once the id is known
+            if (++pending % chunkSize == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+        for (int i = 0; i < persisted.size(); i++) {
+            int index = persistedIndexes.get(i);
+            results.set(index, BatchItemResult.of(index, persisted.get(i).getId(), 201));
+            orderRollupService.created(OrderSnapshot.of(persisted.get(i)));
+            orderEventService.created(persisted.get(i));
+            if ((i + 1) % chunkSize == 0) {     //outbox rows are batched like the orders
+                flushAndClear();
+            }
+        }
+        return results;
+    }
+
+    //INSERT already validated orders (asynchronous ingestion), ids are set on the given orders
+    //the same orders are given again after a rolled back attempt, which left its ids and version on them
+    @Transactional
+    public void insertAll(List<Order> orders) {
+        int pending = 0;
+        for (Order order : orders) {
+            order.setId(null);
+            order.setVersion(null);
+            order.getItems().forEach(item -> item.setId(null));
+            entityManager.persist(order);
+            if (++pending % chunkSize == 0) {
+                flushAndClear();
+            }
+        }
+        flushAndClear();
+        pending = 0;
+        for (Order order : orders) {
+            orderRollupService.created(OrderSnapshot.of(order));
+            orderEventService.created(order);
+            if (++pending % chunkSize == 0) {
+                flushAndClear();
+            }
+        }
+    }
+
+    //UPDATE - existing orders are loaded (locked) in chunks, modified and flushed as batched update statements
+    //an element with a version is only applied at that version (412 otherwise), like the single PUT with If-Match
+    //entities are changed through dirty checking rather than save, so the order cache is invalidated here
+    @Transactional
+    @CacheEvict(cacheNames = OrderRepository.ORDERS_CACHE, allEntries = true)
+    public List<BatchItemResult> updateAll(List<Order> orders) {
+        BatchItemResult[] results = new BatchItemResult[orders.size()];
+        Map<Long, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            if (order == null || order.getId() == null) {
+                results[i] = BatchItemResult.invalid(i, null, List.of("id: Order id is required"));
+                continue;
+            }
+            List<String> errors = validate(order);
+            if (!errors.isEmpty()) {
+                results[i] = BatchItemResult.invalid(i, order.getId(), errors);
+            } else if (indexById.putIfAbsent(order.getId(), i) != null) {
+                results[i] = BatchItemResult.invalid(i, order.getId(), List.of("id: Order appears more than once in the batch"));
+            }
+        }
+        List<Long> ids = new ArrayList<>(indexById.keySet());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<Order> updated = new ArrayList<>(chunk.size());
+            for (Order existing : orderRepository.findAllForWrite(chunk)) {
+                int index = indexById.get(existing.getId());
+                Order order = orders.get(index);
+                if (order.getVersion() != null && !order.getVersion().equals(existing.getVersion())) {
+                    results[index] = BatchItemResult.of(index, existing.getId(), 412);   //changed since the client read it
+                    continue;
+                }
+                updated.add(existing);
+                OrderSnapshot before = OrderSnapshot.of(existing);
+                existing.setCustomerName(order.getCustomerName());
+                existing.setOrderDate(order.getOrderDate());
+                existing.setShippingAddress(order.getShippingAddress());
+                existing.setTotalMinor(order.getTotalMinor());
+                existing.setCurrency(order.getCurrency());
+                orderRollupService.updated(before, OrderSnapshot.of(existing));
+                results[index] = BatchItemResult.of(index, existing.getId(), 200);
+            }
+            flushAndClear();
+            for (Order existing : updated) {    //after the flush, so the events carry the incremented versions
+                orderEventService.updated(existing);
+            }
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : indexById.entrySet()) {  //ids that were not found in the orders table
+            if (results[entry.getValue()] == null) {
+                missing.add(entry.getKey());
+            }
+        }
+        Set<Long> archived = archived(missing);
+        for (Long id : missing) {
+            int index = indexById.get(id);
+            results[index] = BatchItemResult.of(index, id, archived.contains(id) ? 409 : 404);
+        }
+        return List.of(results);
+    }
+
+    //DELETE - one locking query and one delete statement per chunk of ids
+    @Transactional
+    public List<BatchItemResult> deleteAll(List<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        Set<Long> distinct = new HashSet<>(ids);
+        distinct.remove(null);
+        List<Long> distinctIds = new ArrayList<>(distinct);
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            List<Long> found = new ArrayList<>(chunk.size());
+            for (Order order : orderRepository.findAllForWrite(chunk)) {  //rows stay locked until the delete commits
+                found.add(order.getId());
+                orderRollupService.deleted(OrderSnapshot.of(order));
+                orderEventService.deleted(order.getId(), order.getVersion());
+            }
+            if (!found.isEmpty()) {
+                orderRepository.deleteAllByIdInBatch(found);
+                existing.addAll(found);
+            }
+            flushAndClear();    //writes the outbox rows, the loaded orders are gone and are not kept in the persistence context
+        }
+        distinct.removeAll(existing);
+        Set<Long> archived = archived(distinct);
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null) {
+                results.add(BatchItemResult.invalid(i, null, List.of("id: Order id is required")));
+            } else if (existing.remove(id)) {   //a repeated id is only deleted once
+                results.add(BatchItemResult.of(i, id, 204));
+            } else {
+                results.add(BatchItemResult.of(i, id, archived.contains(id) ? 409 : 404));
+            }
+        }
+        return results;
+    }
+
+    //the ids, of those not in the orders table, that were archived (read-only, 409), chunked like the writes
+    private Set<Long> archived(Collection<Long> ids) {
+        List<Long> missing = new ArrayList<>(ids);
+        Set<Long> archived = new HashSet<>();
+        for (int from = 0; from < missing.size(); from += chunkSize) {
+            archived.addAll(archivedOrderRepository.findExistingIds(missing.subList(from, Math.min(from + chunkSize, missing.size()))));
+        }
+        return archived;
+    }
+
+    //same "field: message" format as the single order validation errors
+    private static List<String> validate(Order order) {
+        List<FieldViolation> violations = OrderValidator.validate(order);
+        if (violations.isEmpty()) {
+            return List.of();
+        }
+        List<String> errors = new ArrayList<>(violations.size());
+        for (FieldViolation violation : violations) {
+            errors.add(violation.toString());
+        }
+        return errors;
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
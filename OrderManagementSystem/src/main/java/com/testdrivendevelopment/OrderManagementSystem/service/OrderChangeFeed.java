@@ -0,0 +1,247 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChangeBatch;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+//pushes outbox changes to the open SSE streams and long polls
+//a single scheduled reader serves every subscriber: subscribers at the same position (usually all of them, once caught up)
+//share one query, so the database sees one indexed read per poll interval however many consumers are connected
+//the SSE writes happen on virtual threads, a client that reads slowly never holds up the scheduler thread
+@Service
+public class OrderChangeFeed {
+    //batches a subscriber that is catching up can get in one tick, the others wait for the next tick
+    private static final int MAX_BATCHES_PER_TICK = 10;
+    //events waiting to be written to one stream, beyond that the stream is skipped until its client has read them
+    private static final int MAX_QUEUED_SENDS = 20;
+
+    private final OrderEventService orderEventService;
+    private final int batchSize;
+    private final Duration streamTimeout;
+    private final Duration heartbeat;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Autowired
+    OrderChangeFeed(OrderEventService orderEventService,
+                    @Value("${orders.changes.batch-size:500}") int batchSize,
+                    @Value("${orders.changes.stream-timeout:PT30M}") Duration streamTimeout,
+                    @Value("${orders.changes.heartbeat:PT15S}") Duration heartbeat) {
+        this.orderEventService = orderEventService;
+        this.batchSize = batchSize;
+        this.streamTimeout = streamTimeout;
+        this.heartbeat = heartbeat;
+    }
+
+    //SSE - every batch is one "changes" event whose id is the last position, so a reconnect with Last-Event-ID resumes
+    public SseEmitter stream(long after) {
+        return subscribe(new SseEmitter(streamTimeout.toMillis()), after);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, long after) {
+        Subscriber subscriber = new StreamSubscriber(emitter, after, sender);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    //LONG POLL - answered right away when there are changes, otherwise with the first batch or an empty one after the wait
+    public DeferredResult<ResponseEntity<OrderChangeBatch>> poll(long after, Duration wait) {
+        DeferredResult<ResponseEntity<OrderChangeBatch>> result =
+                new DeferredResult<>(wait.toMillis(), ResponseEntity.ok(OrderChangeBatch.empty(after)));
+        OrderChangeBatch batch = orderEventService.read(after, batchSize);
+        if (!batch.changes().isEmpty() || wait.isZero()) {
+            result.setResult(ResponseEntity.ok(batch));
+            return result;
+        }
+        Subscriber subscriber = new PollSubscriber(result, after);
+        result.onCompletion(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${orders.changes.poll-interval:PT0.5S}")
+    public void dispatch() {
+        //position what was committed since the last tick, also without subscribers here: other instances and polls read it
+        for (int i = 0; i < MAX_BATCHES_PER_TICK && orderEventService.relay(batchSize) == batchSize; i++) {
+            //a full batch, there may be more
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Subscriber>> byPosition = subscribers.stream()
+                .filter(subscriber -> !subscriber.busy())
+                .collect(Collectors.groupingBy(Subscriber::position));
+        for (Map.Entry<Long, List<Subscriber>> entry : byPosition.entrySet()) {
+            List<Subscriber> group = new ArrayList<>(entry.getValue());
+            long position = entry.getKey();
+            for (int i = 0; i < MAX_BATCHES_PER_TICK && !group.isEmpty(); i++) {
+                OrderChangeBatch batch = orderEventService.read(position, batchSize);
+                if (batch.changes().isEmpty()) {
+                    break;
+                }
+                group.removeIf(subscriber -> {
+                    boolean open = subscriber.deliver(batch);
+                    if (!open) {
+                        subscribers.remove(subscriber);
+                    }
+                    return !open;
+                });
+                position = batch.next();
+                if (batch.changes().size() < batchSize) {   //caught up
+                    break;
+                }
+            }
+        }
+        long idleSince = System.nanoTime() - heartbeat.toNanos();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.lastSent() - idleSince < 0 && !subscriber.busy() && !subscriber.keepAlive()) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+    }
+
+    //a consumer and its position, only touched by the dispatching thread once subscribed
+    private abstract static class Subscriber {
+        volatile long position;
+        volatile long lastSent = System.nanoTime();
+
+        Subscriber(long position) {
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        long lastSent() {
+            return lastSent;
+        }
+
+        //false when the subscriber is done (answered long poll, closed stream)
+        abstract boolean deliver(OrderChangeBatch batch);
+
+        abstract boolean keepAlive();
+
+        //true while earlier deliveries are still being written, it is left out of the tick
+        boolean busy() {
+            return false;
+        }
+    }
+
+    //the events are queued and written in order by one drain task at a time on the sender executor
+    private static final class StreamSubscriber extends Subscriber {
+        private final SseEmitter emitter;
+        private final Executor sender;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        StreamSubscriber(SseEmitter emitter, long position, Executor sender) {
+            super(position);
+            this.emitter = emitter;
+            this.sender = sender;
+        }
+
+        @Override
+        boolean deliver(OrderChangeBatch batch) {
+            send(SseEmitter.event().id(Long.toString(batch.next())).name("changes").data(batch, MediaType.APPLICATION_JSON));
+            position = batch.next();    //the next batch is read from here, it is queued behind this one
+            return !closed;
+        }
+
+        @Override
+        boolean keepAlive() {
+            send(SseEmitter.event().comment("keep-alive"));
+            return !closed;
+        }
+
+        @Override
+        boolean busy() {
+            return queued.get() >= MAX_QUEUED_SENDS;
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            lastSent = System.nanoTime();
+            queue.add(event);
+            queued.incrementAndGet();
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        if (!closed) {
+                            emitter.send(event);
+                        }
+                    } catch (IOException | IllegalStateException e) {   //client gone or emitter already completed
+                        closed = true;
+                        emitter.completeWithError(e);
+                    } finally {
+                        queued.decrementAndGet();   //counted until written, the one being written too
+                    }
+                }
+                draining.set(false);
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));     //queued after the last poll
+        }
+    }
+
+    private static final class PollSubscriber extends Subscriber {
+        private final DeferredResult<ResponseEntity<OrderChangeBatch>> result;
+
+        PollSubscriber(DeferredResult<ResponseEntity<OrderChangeBatch>> result, long position) {
+            super(position);
+            this.result = result;
+        }
+
+        @Override
+        boolean deliver(OrderChangeBatch batch) {
+            result.setResult(ResponseEntity.ok(batch));
+            return false;
+        }
+
+        @Override
+        boolean keepAlive() {
+            return !result.isSetOrExpired();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChange;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChangeBatch;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEvent;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEventRelay;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderEventRelayRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderEventRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+//outbox of order changes: written by OrderService and OrderBatchService inside their transactions,
+//positioned in commit order by the relay, read by position for the change stream and compacted once older than the retention
+@Service
+public class OrderEventService {
+    private static final Logger log = LoggerFactory.getLogger(OrderEventService.class);
+
+    private final OrderEventRepository orderEventRepository;
+    private final OrderEventRelayRepository orderEventRelayRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    //every event up to this position has been compacted, consumers behind it have missed changes
+    private final AtomicLong compactedThrough = new AtomicLong();
+
+    @Autowired
+    OrderEventService(OrderEventRepository orderEventRepository, OrderEventRelayRepository orderEventRelayRepository,
+                      ObjectMapper objectMapper, @Value("${orders.changes.retention:P7D}") Duration retention) {
+        this.orderEventRepository = orderEventRepository;
+        this.orderEventRelayRepository = orderEventRelayRepository;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    void init() {
+        if (orderEventRelayRepository.findLastPosition(OrderEventRelay.ID).isEmpty()) {
+            //positions continue after the sequences consumers read before there were positions
+            Long lastSequence = orderEventRepository.findMaxSequence();
+            try {
+                orderEventRelayRepository.save(new OrderEventRelay(lastSequence == null ? 0L : lastSequence));
+            } catch (DataIntegrityViolationException e) {
+                //another instance created it first
+            }
+        }
+        Long first = orderEventRepository.findMinPosition();
+        compactedThrough.set(first == null ? 0L : first - 1);
+    }
+
+    //RECORD - only inside the transaction of the change, so an event exists if and only if the change was committed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(Order order) {
+        record(OrderEvent.Type.CREATED, order.getId(), order.getVersion(), order);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void updated(Order order) {
+        record(OrderEvent.Type.UPDATED, order.getId(), order.getVersion(), order);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleted(Long orderId, Long version) {
+        record(OrderEvent.Type.DELETED, orderId, version, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void archived(Long orderId, Long version) {
+        record(OrderEvent.Type.ARCHIVED, orderId, version, null);
+    }
+
+    private void record(OrderEvent.Type type, Long orderId, Long version, Order order) {
+        try {
+            String payload = order == null ? null : objectMapper.writeValueAsString(order);
+            orderEventRepository.save(new OrderEvent(type, orderId, version, Instant.now(), payload));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //RELAY - gives the next events found committed their positions, in one transaction holding the relay row so instances
+    //take turns: an event that commits late is positioned after everything positioned before it, so a consumer that has read
+    //up to a position never misses anything behind it. Returns how many events were positioned (less than limit: caught up)
+    @Transactional
+    public int relay(int limit) {
+        OrderEventRelay relay = orderEventRelayRepository.findForUpdate(OrderEventRelay.ID).orElseThrow();
+        List<OrderEvent> events = orderEventRepository.findByPositionIsNullOrderBySequenceAsc(PageRequest.ofSize(limit));
+        for (OrderEvent event : events) {
+            event.setPosition(relay.nextPosition());
+        }
+        return events.size();
+    }
+
+    //READ - up to limit changes after the given position
+    //positions of one relay run become visible together, so this can be served by a replica: a lagging one is only behind
+    @Transactional(readOnly = true)
+    public OrderChangeBatch read(long after, int limit) {
+        List<OrderEvent> events = orderEventRepository.findByPositionGreaterThanOrderByPositionAsc(after, PageRequest.ofSize(limit));
+        List<OrderChange> changes = new ArrayList<>(events.size());
+        for (OrderEvent event : events) {
+            changes.add(OrderChange.of(event));
+        }
+        return new OrderChangeBatch(changes, events.isEmpty() ? after : events.get(events.size() - 1).getPosition());
+    }
+
+    //position of the oldest retained change, where a new consumer starts
+    public long firstPosition() {
+        return compactedThrough.get();
+    }
+
+    //true when changes after the given position were already compacted away (the consumer has to resync)
+    public boolean isCompacted(long after) {
+        return after < compactedThrough.get();
+    }
+
+    //COMPACTION - one delete of everything older than the retention
+    @Scheduled(fixedDelayString = "${orders.changes.compaction-interval:PT1H}", initialDelayString = "${orders.changes.compaction-interval:PT1H}")
+    public void compact() {
+        Long through = orderEventRepository.findMaxPositionBefore(Instant.now().minus(retention));
+        if (through == null || through <= compactedThrough.get()) {
+            return;
+        }
+        int deleted = orderEventRepository.deleteThrough(through);
+        compactedThrough.accumulateAndGet(through, Math::max);
+        log.info("Compacted {} order events up to position {}", deleted, through);
+    }
+}
@@ -0,0 +1,57 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+@Service
+public class OrderExportService {
+    //orders read (and the output flushed) per chunk, so the client starts receiving data right away
+    private static final int CHUNK_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter orderWriter;
+
+    @Autowired
+    OrderExportService(OrderRepository orderRepository, EntityManager entityManager, ObjectMapper objectMapper) {
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.orderWriter = objectMapper.writerFor(Order.class);
+    }
+
+    //write every order with its items as newline delimited JSON, in chunks walked by id (keyset)
+    //two queries per chunk: the orders, then all their items, a cursor over the orders would load the items one order at a time
+    //the persistence context is cleared after each chunk so it (and the heap) stays flat
+    @Transactional(readOnly = true)
+    public long writeNdjson(OutputStream out) throws IOException {
+        long written = 0;
+        long cursor = 0L;
+        while (true) {
+            List<Order> chunk = orderRepository.findByIdGreaterThan(cursor, PageRequest.of(0, CHUNK_SIZE, Sort.by("id")));
+            orderRepository.fetchItems(chunk);
+            for (Order order : chunk) {
+                out.write(orderWriter.writeValueAsBytes(order));
+                out.write('\n');
+            }
+            written += chunk.size();
+            out.flush();
+            entityManager.clear();
+            if (chunk.size() < CHUNK_SIZE) {
+                return written;
+            }
+            cursor = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+}
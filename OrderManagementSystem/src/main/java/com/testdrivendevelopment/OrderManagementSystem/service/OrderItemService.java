@@ -0,0 +1,75 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+//write path for the items of an order: they are changed through the order, which is locked for the change,
+//gets the sum of its items as total and a new version, and is written to the rollups and the outbox like any update
+@Service
+public class OrderItemService {
+    private final EntityManager entityManager;
+    private final OrderRollupService orderRollupService;
+    private final OrderEventService orderEventService;
+
+    @Autowired
+    OrderItemService(EntityManager entityManager, OrderRollupService orderRollupService, OrderEventService orderEventService) {
+        this.entityManager = entityManager;
+        this.orderRollupService = orderRollupService;
+        this.orderEventService = orderEventService;
+    }
+
+    //CREATE - the items get their ids from the sequence and are inserted as one JDBC batch, empty when the order does not exist
+    @Transactional
+    @CacheEvict(cacheNames = OrderRepository.ORDERS_CACHE, key = "#p0")
+    public Optional<List<OrderItem>> addItems(Long orderId, List<OrderItem> items) {
+        Order order = entityManager.find(Order.class, orderId, LockModeType.PESSIMISTIC_WRITE);
+        if (order == null) {
+            return Optional.empty();
+        }
+        OrderSnapshot before = OrderSnapshot.of(order);
+        for (OrderItem item : items) {
+            item.setId(null);   //ids are always generated by the sequence
+            order.addItem(item);
+        }
+        changed(order, before);
+        return Optional.of(items);
+    }
+
+    //DELETE - an order with items keeps at least one, its total is the sum of its items
+    @Transactional
+    @CacheEvict(cacheNames = OrderRepository.ORDERS_CACHE, key = "#p0")
+    public OrderService.Outcome removeItem(Long orderId, Long itemId) {
+        Order order = entityManager.find(Order.class, orderId, LockModeType.PESSIMISTIC_WRITE);
+        if (order == null) {
+            return OrderService.Outcome.NOT_FOUND;
+        }
+        Optional<OrderItem> item = order.getItems().stream().filter(i -> i.getId().equals(itemId)).findFirst();
+        if (item.isEmpty()) {
+            return OrderService.Outcome.NOT_FOUND;
+        }
+        if (order.getItems().size() == 1) {
+            return OrderService.Outcome.CONFLICT;
+        }
+        OrderSnapshot before = OrderSnapshot.of(order);
+        order.removeItem(item.get());
+        changed(order, before);
+        return OrderService.Outcome.DONE;
+    }
+
+    private void changed(Order order, OrderSnapshot before) {
+        entityManager.flush();  //increments the version, the rollups and the event get the order as written
+        orderRollupService.updated(before, OrderSnapshot.of(order));
+        orderEventService.updated(order);
+    }
+}
@@ -0,0 +1,258 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.Money;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import com.testdrivendevelopment.OrderManagementSystem.model.RevenueReport;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//in-memory revenue rollups per day and per customer, so reports never scan the orders table
+//built in the background once the application is ready with one GROUP BY per rollup (reports answer 503 until then),
+//and kept up to date by every create/update/delete going through OrderService and OrderBatchService
+//(changes are applied after the transaction commits)
+@Service
+@Lazy(false)    //counts every write from the start, also when the prod profile makes beans lazy
+public class OrderRollupService {
+    private static final Logger log = LoggerFactory.getLogger(OrderRollupService.class);
+    private static final long RETRY_MILLIS = 5000;
+
+    private final OrderRepository orderRepository;
+    //archived orders are still revenue, moving them does not change the rollups
+    private final ArchivedOrderRepository archivedOrderRepository;
+    //the GROUP BYs of a rebuild run in one SERIALIZABLE transaction on the primary: one snapshot of orders and orders_archive
+    private final TransactionTemplate rebuildTransaction;
+    //sorted by day so a date range is a sub map
+    private final ConcurrentNavigableMap<LocalDate, Totals> byDay = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Totals> byCustomer = new ConcurrentHashMap<>();
+    //writers hold the read lock from just before their commit until the change is applied, the rebuild takes the write lock
+    //to take its snapshot and to swap in the result, so every change is either in the snapshot or applied on top of it, never both
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+    //changes committed after the rebuild's snapshot, applied once its result is in (guarded by commitLock)
+    private final List<Runnable> pending = new ArrayList<>();
+    private volatile boolean buffering;
+    private volatile boolean ready;
+
+    @Autowired
+    OrderRollupService(OrderRepository orderRepository, ArchivedOrderRepository archivedOrderRepository,
+                       PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    //not in @PostConstruct: the GROUP BYs over a large table would hold up the startup
+    @EventListener(ApplicationReadyEvent.class)
+    void startRebuild() {
+        Thread.ofPlatform().daemon().name("order-rollup-rebuild").start(() -> {
+            while (!ready) {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Revenue rollups could not be built, retrying in {} ms", RETRY_MILLIS, e);
+                    try {
+                        Thread.sleep(RETRY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    void rebuild() {
+        try {
+            rebuildTransaction.executeWithoutResult(status -> {
+                commitLock.writeLock().lock();
+                try {
+                    orderRepository.findSnapshotById(0L);     //first statement, the snapshot is taken here
+                    buffering = true;
+                } finally {
+                    commitLock.writeLock().unlock();
+                }
+                NavigableMap<LocalDate, Totals> days = new TreeMap<>();
+                Map<String, Totals> customers = new HashMap<>();
+                for (List<DailyRevenue> rows : List.of(orderRepository.sumByDay(), archivedOrderRepository.sumByDay())) {
+                    for (DailyRevenue day : rows) {
+                        days.computeIfAbsent(day.day(), key -> new Totals()).add(day.orderCount(), Money.toMinor(day.revenue()));
+                    }
+                }
+                for (List<CustomerRevenue> rows : List.of(orderRepository.sumByCustomer(), archivedOrderRepository.sumByCustomer())) {
+                    for (CustomerRevenue customer : rows) {
+                        customers.computeIfAbsent(customer.customerName(), key -> new Totals()).add(customer.orderCount(), Money.toMinor(customer.revenue()));
+                    }
+                }
+                commitLock.writeLock().lock();
+                try {
+                    byDay.clear();
+                    byDay.putAll(days);
+                    byCustomer.clear();
+                    byCustomer.putAll(customers);
+                    pending.forEach(Runnable::run);
+                    ready = true;
+                } finally {
+                    buffering = false;
+                    pending.clear();
+                    commitLock.writeLock().unlock();
+                }
+            });
+        } finally {
+            if (!ready) {   //failed, the changes buffered so far are in the next snapshot
+                commitLock.writeLock().lock();
+                buffering = false;
+                pending.clear();
+                commitLock.writeLock().unlock();
+            }
+        }
+        log.info("Revenue rollups built: {} days, {} customers", byDay.size(), byCustomer.size());
+    }
+
+    //MUTATIONS - before is null for a create, after is null for a delete
+    public void created(OrderSnapshot after) {
+        changed(null, after);
+    }
+
+    public void updated(OrderSnapshot before, OrderSnapshot after) {
+        changed(before, after);
+    }
+
+    public void deleted(OrderSnapshot before) {
+        changed(before, null);
+    }
+
+    private void changed(OrderSnapshot before, OrderSnapshot after) {
+        Runnable apply = () -> {
+            if (before != null) {
+                apply(before, -1);
+            }
+            if (after != null) {
+                apply(after, 1);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {  //only count what was committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean locked;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitLock.readLock().lock();
+                    locked = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    applyOrBuffer(apply);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (locked) {
+                        commitLock.readLock().unlock();
+                    }
+                }
+            });
+        } else {
+            commitLock.readLock().lock();
+            try {
+                applyOrBuffer(apply);
+            } finally {
+                commitLock.readLock().unlock();
+            }
+        }
+    }
+
+    //called with the read lock held
+    private void applyOrBuffer(Runnable apply) {
+        if (buffering) {
+            synchronized (pending) {    //several writers can hold the read lock
+                pending.add(apply);
+            }
+        } else {
+            apply.run();
+        }
+    }
+
+    private void apply(OrderSnapshot order, int sign) {
+        long total = order.totalMinor() == null ? 0L : order.totalMinor();
+        if (order.orderDate() != null) {
+            byDay.computeIfAbsent(order.orderDate(), key -> new Totals()).add(sign, sign * total);
+        }
+        if (order.customerName() != null) {
+            byCustomer.computeIfAbsent(order.customerName(), key -> new Totals()).add(sign, sign * total);
+        }
+    }
+
+    //REPORTS
+    public RevenueReport daily(LocalDate from, LocalDate to) {
+        requireReady();
+        List<DailyRevenue> days = new ArrayList<>();
+        long orderCount = 0;
+        long revenue = 0;
+        for (var day : byDay.subMap(from, true, to, true).entrySet()) {
+            long count = day.getValue().count.sum();
+            if (count == 0) {
+                continue;
+            }
+            long dayRevenue = day.getValue().revenue.sum();
+            days.add(new DailyRevenue(day.getKey(), count, Money.toDecimal(dayRevenue)));
+            orderCount += count;
+            revenue += dayRevenue;
+        }
+        return new RevenueReport(from, to, orderCount, Money.toDecimal(revenue), days);
+    }
+
+    public Optional<CustomerRevenue> customer(String customerName) {
+        requireReady();
+        Totals totals = byCustomer.get(customerName);
+        if (totals == null || totals.count.sum() == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new CustomerRevenue(customerName, totals.count.sum(), Money.toDecimal(totals.revenue.sum())));
+    }
+
+    private void requireReady() {
+        if (!ready) {
+            throw new RollupsNotReadyException();
+        }
+    }
+
+    //adders so concurrent writers to the same day or customer do not contend on one counter, revenue in minor units (exact)
+    private static final class Totals {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder revenue = new LongAdder();
+
+        void add(long orderCount, long amount) {
+            count.add(orderCount);
+            revenue.add(amount);
+        }
+    }
+}
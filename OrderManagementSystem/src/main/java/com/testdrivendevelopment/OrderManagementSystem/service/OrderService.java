@@ -0,0 +1,132 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderItemRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+//write path for single orders, keeps the revenue rollups in step with every create/update/delete
+//updates and deletes read a snapshot of the order (no entity load) and then run one statement guarded by
+//the snapshot version, so the rollup always subtracts exactly what was replaced
+//every change is also written to the outbox (OrderEventService) in the same transaction
+@Service
+public class OrderService {
+    //BUSY: the order kept changing under an unconditional update or a delete, the client can retry
+    //ARCHIVED: the order was moved to the archive (OrderArchiveService) and is read-only
+    public enum Outcome { DONE, NOT_FOUND, CONFLICT, BUSY, ARCHIVED }
+    //snapshot + guarded statement rounds before giving up with BUSY, a request thread never spins on a hot order
+    private static final int MAX_ATTEMPTS = 3;
+
+    //outcome of an update, with the order as it was written when DONE (null otherwise)
+    public record Updated(Outcome outcome, Order order) {
+
+        static Updated of(Outcome outcome) {
+            return new Updated(outcome, null);
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderRollupService orderRollupService;
+    private final OrderEventService orderEventService;
+
+    @Autowired
+    OrderService(OrderRepository orderRepository, OrderItemRepository orderItemRepository,
+                 ArchivedOrderRepository archivedOrderRepository,
+                 OrderRollupService orderRollupService, OrderEventService orderEventService) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.orderRollupService = orderRollupService;
+        this.orderEventService = orderEventService;
+    }
+
+    //CREATE
+    @Transactional
+    public Order create(Order order) {
+        Order createdOrder = orderRepository.save(order);
+        orderRollupService.created(OrderSnapshot.of(createdOrder));
+        orderEventService.created(createdOrder);
+        return createdOrder;
+    }
+
+    //UPDATE - expectedVersion null means "whatever the current version is"
+    //on DONE the result carries the order built from what the statement wrote: id, new version, modification time,
+    //and the current items (not replaced, they change through OrderItemService) with their sum as total
+    @Transactional
+    public Updated update(Long id, Long expectedVersion, Order order) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<OrderSnapshot> current = findVersionedSnapshot(id);
+            if (current.isEmpty()) {
+                return Updated.of(missing(id));
+            }
+            OrderSnapshot before = current.get();
+            if (expectedVersion != null && !expectedVersion.equals(before.version())) {
+                return Updated.of(Outcome.CONFLICT);
+            }
+            Order written = new Order(order.getCustomerName(), order.getOrderDate(), order.getShippingAddress(), order.getTotal());
+            written.setCurrency(order.getCurrency());
+            written.setItems(orderItemRepository.findCopiesByOrderId(id));   //read after the snapshot, a later change moves the version
+            Instant now = Instant.now();
+            int updated = orderRepository.updateByIdAndVersion(id, before.version(), written.getCustomerName(), written.getOrderDate(),
+                    written.getShippingAddress(), written.getTotalMinor(), written.getCurrency(), now);
+            if (updated > 0) {
+                written.setId(id);
+                written.setVersion(before.version() + 1);
+                written.setUpdatedAt(now);
+                orderRollupService.updated(before, OrderSnapshot.of(written));
+                orderEventService.updated(written);
+                return new Updated(Outcome.DONE, written);
+            }
+            if (expectedVersion != null) {  //changed between the snapshot and the update
+                return Updated.of(Outcome.CONFLICT);
+            }
+            //unconditional update raced with another write, read the new snapshot and try again
+        }
+        return Updated.of(Outcome.BUSY);
+    }
+
+    //DELETE
+    @Transactional
+    public Outcome delete(Long id) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            Optional<OrderSnapshot> current = findVersionedSnapshot(id);
+            if (current.isEmpty()) {
+                return missing(id);
+            }
+            if (orderRepository.deleteByIdAndVersion(id, current.get().version()) > 0) {
+                orderRollupService.deleted(current.get());
+                orderEventService.deleted(id, current.get().version());
+                return Outcome.DONE;
+            }
+            //changed between the snapshot and the delete, read it again
+        }
+        return Outcome.BUSY;
+    }
+
+    //not in the orders table: archived (only read on this path, it never comes back) or never existed
+    private Outcome missing(Long id) {
+        return archivedOrderRepository.existsById(id) ? Outcome.ARCHIVED : Outcome.NOT_FOUND;
+    }
+
+    //rows written before the version column existed have none, they start at 0 (the ETag they were served with)
+    //so the version guarded statements can match them
+    private Optional<OrderSnapshot> findVersionedSnapshot(Long id) {
+        Optional<OrderSnapshot> current = orderRepository.findSnapshotById(id);
+        if (current.isEmpty() || current.get().version() != null) {
+            return current;
+        }
+        OrderSnapshot unversioned = current.get();
+        orderRepository.initializeVersion(id);  //0 rows when another request did it first, its version is read next round
+        return Optional.of(new OrderSnapshot(unversioned.id(), unversioned.customerName(), unversioned.orderDate(),
+                unversioned.totalMinor(), 0L));
+    }
+}
@@ -0,0 +1,10 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+//thrown by the revenue reports until the rollups are built after startup,
+//answered with SERVICE UNAVAILABLE (503) and Retry-After
+public class RollupsNotReadyException extends RuntimeException {
+
+    public RollupsNotReadyException() {
+        super("Revenue rollups are still being built", null, false, false);   //expected right after startup, no stack trace to fill in
+    }
+}
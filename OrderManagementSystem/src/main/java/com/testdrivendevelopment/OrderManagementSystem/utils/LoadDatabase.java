@@ -1,26 +1,34 @@
 package com.testdrivendevelopment.OrderManagementSystem.utils;
 
 import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
 import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderService;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import java.time.LocalDate;
 import org.slf4j.Logger;
 
+//sample data for development only, the prod profile keeps its orders in the file-backed store
 @Configuration
+@Profile("dev")
 public class LoadDatabase {
     private static final Logger log = LoggerFactory.getLogger(LoadDatabase.class);
     @Bean
-    CommandLineRunner initDatabase(OrderRepository orderRepository) {
+    CommandLineRunner initDatabase(OrderService orderService, OrderRepository orderRepository) {
         return args -> {
-            orderRepository.save(new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
-            orderRepository.save(new Order("Donkey", LocalDate.now(), "456 Dragon's Den", 45.32));
+            //created through the service so the samples show up in the revenue reports
+            orderService.create(new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
+            orderService.create(new Order("Donkey", LocalDate.now(), "456 Dragon's Den", 45.32));
+            Order fiona = new Order("Fiona", LocalDate.now(), "Far Far Away Castle", 0.0);   //total comes from the items
+            fiona.addItem(new OrderItem("ROSE-12", 12, 1.25));
+            fiona.addItem(new OrderItem("CLOAK-1", 1, 30.00));
+            orderService.create(fiona);
 
-            orderRepository.findAll().forEach(order -> {
-                log.info("Preloaded: " + order);
-            });
+            log.info("Preloaded orders, {} in the database", orderRepository.count());   //count only, never log the whole table
         };
     }
 }
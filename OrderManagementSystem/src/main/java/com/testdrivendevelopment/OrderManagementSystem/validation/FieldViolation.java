@@ -0,0 +1,11 @@
+package com.testdrivendevelopment.OrderManagementSystem.validation;
+
+//one invalid field of a request, sent as {"field": "customerName", "message": "Customer name is required"}
+public record FieldViolation(String field, String message) {
+
+    //"field: message", the format of the errors in the bulk call results
+    @Override
+    public String toString() {
+        return field + ": " + message;
+    }
+}
@@ -0,0 +1,23 @@
+package com.testdrivendevelopment.OrderManagementSystem.validation;
+
+import java.util.List;
+
+//an invalid order, answered with BAD REQUEST (400) and the violations as JSON
+//it is an expected outcome of a request rather than an error, so no stack trace is captured
+public class OrderValidationException extends RuntimeException {
+    private final transient List<FieldViolation> violations;
+
+    public OrderValidationException(List<FieldViolation> violations) {
+        super(null, null, false, false);
+        this.violations = violations;
+    }
+
+    public List<FieldViolation> getViolations() {
+        return violations;
+    }
+
+    @Override
+    public String getMessage() {
+        return violations.toString();
+    }
+}
@@ -0,0 +1,106 @@
+package com.testdrivendevelopment.OrderManagementSystem.validation;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Money;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+//the constraints of Order checked by hand instead of through Hibernate Validator: no reflection, no metadata lookups,
+//no violation objects, and nothing allocated at all for a valid order
+//the Bean Validation annotations on Order stay as the documentation of the rules and share these messages,
+//OrderValidatorTest checks both agree
+public final class OrderValidator {
+    public static final String CUSTOMER_NAME_REQUIRED = "Customer name is required";
+    public static final String ORDER_DATE_PAST_OR_PRESENT = "Order date should be in the past or present";
+    public static final String SHIPPING_ADDRESS_REQUIRED = "Shipping address is required";
+    public static final String TOTAL_POSITIVE = "Total must be a positive value";
+    public static final String CURRENCY_SUPPORTED = "Currency must be " + Money.DEFAULT_CURRENCY;
+    public static final String SKU_REQUIRED = "SKU is required";
+    public static final String QUANTITY_POSITIVE = "Quantity must be a positive value";
+    public static final String UNIT_PRICE_POSITIVE = "Unit price must be a positive value";
+    public static final String ITEMS_REQUIRED = "At least one item is required";
+    public static final String ITEM_REQUIRED = "Item is required";
+
+    private OrderValidator() { }
+
+    //violations in field order, an empty (shared) list for a valid order
+    public static List<FieldViolation> validate(Order order) {
+        List<FieldViolation> violations = List.of();
+        if (isEmpty(order.getCustomerName())) {     //@NotEmpty
+            violations = add(violations, "customerName", CUSTOMER_NAME_REQUIRED);
+        }
+        LocalDate orderDate = order.getOrderDate();
+        if (orderDate != null && orderDate.isAfter(LocalDate.now())) {     //@PastOrPresent, null is valid
+            violations = add(violations, "orderDate", ORDER_DATE_PAST_OR_PRESENT);
+        }
+        if (isEmpty(order.getShippingAddress())) {  //@NotEmpty
+            violations = add(violations, "shippingAddress", SHIPPING_ADDRESS_REQUIRED);
+        }
+        if (order.getTotalMinor() <= 0) {   //@Positive
+            violations = add(violations, "total", TOTAL_POSITIVE);
+        }
+        //@Pattern with a literal currency code, null is valid
+        if (order.getCurrency() != null && !order.getCurrency().equals(Money.DEFAULT_CURRENCY)) {
+            violations = add(violations, "currency", CURRENCY_SUPPORTED);
+        }
+        return validateItems(violations, "items", order.getItems());   //@Valid
+    }
+
+    //items added to an existing order, fields named like in an order ("items[0].sku")
+    public static List<FieldViolation> validateItems(List<OrderItem> items) {
+        if (items == null || items.isEmpty()) {
+            return List.of(new FieldViolation("items", ITEMS_REQUIRED));
+        }
+        return validateItems(List.of(), "items", items);
+    }
+
+    private static List<FieldViolation> validateItems(List<FieldViolation> violations, String field, List<OrderItem> items) {
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            if (item == null) {
+                violations = add(violations, field + "[" + i + "]", ITEM_REQUIRED);
+                continue;
+            }
+            if (isEmpty(item.getSku())) {   //@NotEmpty
+                violations = add(violations, field + "[" + i + "].sku", SKU_REQUIRED);
+            }
+            if (item.getQuantity() <= 0) {  //@Positive
+                violations = add(violations, field + "[" + i + "].quantity", QUANTITY_POSITIVE);
+            }
+            if (item.getUnitPriceMinor() <= 0) {    //@Positive
+                violations = add(violations, field + "[" + i + "].unitPrice", UNIT_PRICE_POSITIVE);
+            }
+        }
+        return violations;
+    }
+
+    //throws OrderValidationException for an invalid order
+    public static void requireValid(Order order) {
+        requireNone(validate(order));
+    }
+
+    public static void requireValidItems(List<OrderItem> items) {
+        requireNone(validateItems(items));
+    }
+
+    private static void requireNone(List<FieldViolation> violations) {
+        if (!violations.isEmpty()) {
+            throw new OrderValidationException(violations);
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static List<FieldViolation> add(List<FieldViolation> violations, String field, String message) {
+        if (violations.isEmpty()) {
+            violations = new ArrayList<>(8);
+        }
+        violations.add(new FieldViolation(field, message));
+        return violations;
+    }
+}
@@ -0,0 +1,6 @@
+package com.testdrivendevelopment.OrderManagementSystem.validation;
+
+import java.util.List;
+
+//body of a BAD REQUEST (400) for an invalid order: {"errors": [{"field": ..., "message": ...}, ...]}
+public record ValidationErrors(List<FieldViolation> errors) { }
@@ -0,0 +1,68 @@
+package com.testdrivendevelopment.OrderManagementSystem.controller;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChange;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChangeBatch;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEvent;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderChangeFeed;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderEventService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(OrderChangeController.class)
+class OrderChangeControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    //mocking the outbox and the feed
+    @MockBean
+    private OrderEventService orderEventService;
+    @MockBean
+    private OrderChangeFeed orderChangeFeed;
+
+    @Test
+    public void getChangesTest() throws Exception {
+        //Given - one change after sequence 41
+        OrderChange change = new OrderChange(42L, OrderEvent.Type.CREATED, 7L, 0L, Instant.now(), "{\"id\":7}");
+        DeferredResult<ResponseEntity<OrderChangeBatch>> result = new DeferredResult<>();
+        result.setResult(ResponseEntity.ok(new OrderChangeBatch(List.of(change), 42L)));
+
+        //When - mock the feed answering the long poll right away
+        when(orderChangeFeed.poll(Mockito.eq(41L), Mockito.any())).thenReturn(result);
+
+        //Then - preform GET request from sequence 41, the change and the next position are returned
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/changes?from=41"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].sequence", Matchers.is(42)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.changes[0].order.id", Matchers.is(7)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next", Matchers.is(42)));
+    }
+
+    @Test
+    public void getChanges_CompactedTest() throws Exception {
+        //When - mock sequence 3 as already compacted
+        when(orderEventService.isCompacted(3L)).thenReturn(true);
+
+        //Then - preform GET request from sequence 3, the consumer is told to resync
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/changes?from=3"))
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(mvcResult))
+                .andExpect(MockMvcResultMatchers.status().isGone());
+    }
+}
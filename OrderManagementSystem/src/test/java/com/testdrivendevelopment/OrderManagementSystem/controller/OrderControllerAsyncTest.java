@@ -0,0 +1,112 @@
+package com.testdrivendevelopment.OrderManagementSystem.controller;
+
+import com.testdrivendevelopment.OrderManagementSystem.ingest.IngestionStoppedException;
+import com.testdrivendevelopment.OrderManagementSystem.ingest.OrderIngestionService;
+import com.testdrivendevelopment.OrderManagementSystem.model.IngestionStatus;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.service.IdempotencyService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderArchiveService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderBatchService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderExportService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderItemService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+//POST /api/orders in the asynchronous mode (orders.ingest.async=true): the ingestion service is there, the order is queued
+@WebMvcTest(OrderController.class)
+class OrderControllerAsyncTest {
+    private static final String ORDER = "{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0}";
+
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    MockMvc mockMvc;
+    //mocking the ingestion queue and the rest of the controller's dependencies
+    @MockBean
+    private OrderIngestionService orderIngestionService;
+    @MockBean
+    private OrderService orderService;
+    @MockBean
+    private OrderRepository orderRepository;
+    @MockBean
+    private OrderExportService orderExportService;
+    @MockBean
+    private OrderBatchService orderBatchService;
+    @MockBean
+    private OrderArchiveService orderArchiveService;
+    @MockBean
+    private OrderItemService orderItemService;
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @Test
+    public void createOrder_AcceptedTest() throws Exception {
+        //When - mock the queue accepting the order
+        UUID ticket = UUID.randomUUID();
+        when(orderIngestionService.submit(Mockito.any())).thenReturn(Optional.of(ticket));
+
+        //Then - perform POST request, accepted with the status link and nothing written yet
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.header().string("Location", endsWith("/api/orders/ingestion/" + ticket)));
+        verify(orderService, never()).create(Mockito.any());
+    }
+
+    @Test
+    public void createOrder_QueueFullTest() throws Exception {
+        //When - mock a full queue
+        when(orderIngestionService.submit(Mockito.any())).thenReturn(Optional.empty());
+
+        //Then - perform POST request, the client is told to slow down
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+    }
+
+    @Test
+    public void createOrder_IngestionStoppedTest() throws Exception {
+        //When - mock the ingestion service draining for shutdown
+        when(orderIngestionService.submit(Mockito.any())).thenThrow(new IngestionStoppedException());
+
+        //Then - perform POST request, unavailable rather than too many requests
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders").contentType(MediaType.APPLICATION_JSON).content(ORDER))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+    }
+
+    @Test
+    public void getIngestionStatusTest() throws Exception {
+        //When - mock one ticket still pending and one whose order was written as order 7
+        UUID pending = UUID.randomUUID();
+        UUID written = UUID.randomUUID();
+        when(orderIngestionService.status(pending)).thenReturn(Optional.of(IngestionStatus.pending(pending)));
+        when(orderIngestionService.status(written)).thenReturn(Optional.of(new IngestionStatus(written, IngestionStatus.State.WRITTEN, 7L)));
+
+        //Then - perform GET requests, the pending one is OK (200) and the written one redirects to the order (303)
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/ingestion/" + pending))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.state", Matchers.is("PENDING")));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/ingestion/" + written))
+                .andExpect(MockMvcResultMatchers.status().isSeeOther())
+                .andExpect(MockMvcResultMatchers.header().string("Location", endsWith("/api/orders/7")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.orderId", Matchers.is(7)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/ingestion/" + UUID.randomUUID()))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+}
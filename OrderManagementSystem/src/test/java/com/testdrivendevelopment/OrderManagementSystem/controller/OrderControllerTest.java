@@ -1,7 +1,25 @@
 package com.testdrivendevelopment.OrderManagementSystem.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.testdrivendevelopment.OrderManagementSystem.config.CborConfig;
+import com.testdrivendevelopment.OrderManagementSystem.model.BatchItemResult;
 import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.RepositoryBusyException;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderItemRepository;
 import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.service.IdempotencyService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderArchiveService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderBatchService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderEventService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderExportService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderItemService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderRollupService;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -9,21 +27,39 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 
 @WebMvcTest(OrderController.class)
 @AutoConfigureMockMvc
+@Import({OrderService.class, CborConfig.class})     //the real write path on top of the mocked repository, and the CBOR converter
 class OrderControllerTest {
     //@Autowired to wire dependencies, this case being by field injection
     @Autowired
@@ -31,6 +67,24 @@ class OrderControllerTest {
     //mocking repository
     @MockBean
     private OrderRepository orderRepository;
+    @MockBean
+    private OrderExportService orderExportService;
+    @MockBean
+    private OrderBatchService orderBatchService;
+    @MockBean
+    private OrderRollupService orderRollupService;
+    @MockBean
+    private OrderEventService orderEventService;
+    @MockBean
+    private IdempotencyService idempotencyService;
+    @MockBean
+    private OrderArchiveService orderArchiveService;
+    @MockBean
+    private OrderItemRepository orderItemRepository;
+    @MockBean
+    private OrderItemService orderItemService;
+    @MockBean
+    private ArchivedOrderRepository archivedOrderRepository;
 
     //CRUD FUNCTIONALITY TESTING:
     //CREATE
@@ -55,6 +109,45 @@ class OrderControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.id").exists());
     }
 
+    @Test
+    public void createOrder_ExactTotalTest() throws Exception {
+        //When - mock behavior of orderRepository.save() and return saved order
+        when(orderRepository.save(Mockito.any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //Then - perform POST requests with the total as a string, it is kept exact, and with too many decimals
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": \"0.10\"}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.content().string(containsString("\"total\":0.10")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.currency", Matchers.is("USD")));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": 23.456}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void createOrder_IdempotencyKeyReplayedTest() throws Exception {
+        //Given - the order already created by the first request with the key
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
+        order.setId(1L);
+
+        //When - mock idempotencyService.execute() replaying the stored response for key "abc"
+        when(idempotencyService.<Order>execute(eq("abc"), eq("POST /api/orders"), any(), any(), any()))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).header(IdempotencyService.REPLAYED_HEADER, "true").body(order));
+
+        //Then - perform the retried POST request, the original order comes back and nothing is saved again
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header(IdempotencyService.HEADER, "abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0}"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id", Matchers.is(1)));
+        verify(orderRepository, never()).save(Mockito.any(Order.class));
+    }
+
     //READ
     @Test
     public void getOrderByIdTest() throws Exception {
@@ -64,7 +157,7 @@ class OrderControllerTest {
         order.setCustomerName("Shrek");
         order.setOrderDate(LocalDate.parse("2023-06-11"));
         order.setShippingAddress("123 Swamp");
-        order.setTotal(100.0);
+        order.setTotal(new BigDecimal("100.00"));
 
         //When - mock behavior of orderRepository.findById() and return specified order
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
@@ -79,6 +172,203 @@ class OrderControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.total", Matchers.is(100.0)));
     }
 
+    @Test
+    public void getOrderById_ExactAmountsTest() throws Exception {
+        //Given - mock order with an item, amounts written straight from the cents
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0);
+        order.setId(1L);
+        order.addItem(new OrderItem("ONION-1", 3, 0.05));
+        order.addItem(new OrderItem("MUD-9", 1, 12345.6));
+
+        //When - mock behavior of orderRepository.findById() and return specified order
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        //Then - preform GET request, the amounts keep their 2 decimals like the BigDecimal they replace
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(containsString("\"total\":12345.75")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("\"unitPrice\":0.05")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("\"unitPrice\":12345.60")));
+    }
+
+    @Test
+    public void getOrderById_ArchivedTest() throws Exception {
+        //Given - mock order that was moved to the archive
+        Order order = new Order("Shrek", LocalDate.parse("2020-06-11"), "123 Swamp", 100.0);
+        order.setId(1L);
+
+        //When - mock orderRepository.findById() missing it and orderArchiveService.findById() finding it
+        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        when(orderArchiveService.findById(1L)).thenReturn(Optional.of(order));
+
+        //Then - preform GET request, the archived order is returned
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.orderDate", Matchers.is("2020-06-11")));
+    }
+
+    //ITEMS
+    @Test
+    public void getOrderItemsTest() throws Exception {
+        //Given - mock order with two items, its total is their sum
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0);
+        order.setId(1L);
+        order.addItem(new OrderItem("ONION-1", 3, 2.50));
+        order.addItem(new OrderItem("MUD-9", 1, 10.0));
+
+        //When - mock behavior of orderRepository.findById() and return specified order
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        //Then - preform GET requests for the order and for its items
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total", Matchers.is(17.5)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items", hasSize(2)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1/items"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].sku", Matchers.is("ONION-1")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].quantity", Matchers.is(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].unitPrice", Matchers.is(2.5)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].order").doesNotExist());
+    }
+
+    @Test
+    public void addOrderItemsTest() throws Exception {
+        //Given - the item as added by the service, with its generated id
+        OrderItem item = new OrderItem("ONION-1", 3, 2.50);
+        item.setId(7L);
+
+        //When - mock behavior of orderItemService.addItems()
+        when(orderItemService.addItems(eq(1L), Mockito.anyList())).thenReturn(Optional.of(List.of(item)));
+
+        //Then - preform POST request to add the item, the location is the items of the order
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders/1/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"sku\": \"ONION-1\", \"quantity\": 3, \"unitPrice\": 2.50}]"))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.LOCATION, containsString("/api/orders/1/items")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id", Matchers.is(7)));
+    }
+
+    @Test
+    public void addOrderItems_ErrorsTest() throws Exception {
+        //Then - preform POST request with an invalid item, the order is never touched
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders/1/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"sku\": \"\", \"quantity\": 0, \"unitPrice\": 2.50}]"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].field", Matchers.is("items[0].sku")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[1].message", Matchers.is("Quantity must be a positive value")));
+        Mockito.verifyNoInteractions(orderItemService);
+    }
+
+    @Test
+    public void deleteOrderItem_LastItemTest() throws Exception {
+        //When - mock orderItemService.removeItem() refusing to remove the only item of the order
+        when(orderItemService.removeItem(1L, 7L)).thenReturn(OrderService.Outcome.CONFLICT);
+
+        //Then - preform DELETE request for the item
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/1/items/7"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void addOrderItems_ArchivedTest() throws Exception {
+        //When - mock an order that is not in the orders table because it was archived
+        when(orderItemService.addItems(eq(5L), Mockito.anyList())).thenReturn(Optional.empty());
+        when(orderArchiveService.isArchived(5L)).thenReturn(true);
+
+        //Then - preform POST request to add an item, archived orders are read-only so the answer is CONFLICT
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders/5/items")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"sku\": \"ONION-1\", \"quantity\": 3, \"unitPrice\": 2.50}]"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void deleteOrderItem_ArchivedTest() throws Exception {
+        //When - mock orderItemService.removeItem() not finding the order, which was archived
+        when(orderItemService.removeItem(5L, 7L)).thenReturn(OrderService.Outcome.NOT_FOUND);
+        when(orderArchiveService.isArchived(5L)).thenReturn(true);
+
+        //Then - preform DELETE request for the item, CONFLICT
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/5/items/7"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void getOrderById_NotModifiedTest() throws Exception {
+        //Given - mock order at version 3
+        Order order = new Order("Shrek", LocalDate.parse("2023-06-11"), "123 Swamp", 100.0);
+        order.setId(1L);
+        order.setVersion(3L);
+
+        //When - mock behavior of orderRepository.findById() and return specified order
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        //Then - preform GET requests, the ETag is returned and a matching If-None-Match gets NOT MODIFIED without a body
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"3\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1").header("If-None-Match", "\"3\""))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    public void getOrderById_LastModifiedTest() throws Exception {
+        //Given - mock order last written an hour ago
+        Order order = new Order("Shrek", LocalDate.parse("2023-06-11"), "123 Swamp", 100.0);
+        order.setId(1L);
+        order.setVersion(3L);
+        order.setUpdatedAt(Instant.now().minusSeconds(3600));
+        HttpHeaders ifModifiedSince = new HttpHeaders();
+        ifModifiedSince.setIfModifiedSince(Instant.now());
+
+        //When - mock behavior of orderRepository.findById() and return specified order
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        //Then - preform GET requests, Last-Modified is returned and a later If-Modified-Since gets NOT MODIFIED without a body
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("Last-Modified"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1").headers(ifModifiedSince))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    public void getOrderById_CborTest() throws Exception {
+        //Given - mock order
+        Order order = new Order("Shrek", LocalDate.parse("2023-06-11"), "123 Swamp", 100.0);
+        order.setId(1L);
+
+        //When - mock behavior of orderRepository.findById() and return specified order
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        //Then - preform GET requests, application/cbor is sent only when asked for, JSON stays the default
+        byte[] cbor = mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1").accept("application/cbor"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode decoded = new ObjectMapper(new CBORFactory()).readTree(cbor);
+        assertThat(decoded.get("customerName").asText()).isEqualTo("Shrek");
+        assertThat(decoded.get("total").decimalValue()).isEqualByComparingTo("100.00");
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void getOrderById_RepositoryBusyTest() throws Exception {
+        //When - mock orderRepository.findById() shed by the concurrency limiter
+        when(orderRepository.findById(1L)).thenThrow(new RepositoryBusyException());
+
+        //Then - preform GET request, SERVICE UNAVAILABLE with Retry-After
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "1"));
+    }
+
     @Test
     public void getAllOrdersTest() throws Exception {
         //Given - mock orders
@@ -90,50 +380,190 @@ class OrderControllerTest {
         orderList.add(order1);
         orderList.add(order2);
 
-        //When - mock behavior of the orderRepository.findAll() and return list of orders
-        when(orderRepository.findAll()).thenReturn(orderList);
+        //When - mock behavior of the keyset page query and return a page of orders that has a next page
+        when(orderRepository.findPageWithItems(Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(orderList, PageRequest.ofSize(2), true));
 
-        //Then - preform GET request to retrieve all orders
-        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders")
+        //Then - preform GET request to retrieve the first page of orders
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders?size=2")
                 .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(MockMvcResultMatchers.jsonPath("$",hasSize(2))).andDo(print());
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.orders",hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.next.href", containsString("after=2"))).andDo(print());
 
     }
 
-    //UPDATE
     @Test
-    public void updateOrderTest() throws Exception {
-        //Given - mock order
+    public void getAllOrders_NotModifiedTest() throws Exception {
+        //Given - mock orders on the first page
+        Order order1 = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
+        Order order2 = new Order("Donkey", LocalDate.now(), "Swamp Neighbor", 200.0);
+        order1.setId(1L);
+        order2.setId(2L);
+        order1.setVersion(0L);
+        order2.setVersion(0L);
+
+        //When - mock behavior of the keyset page query
+        when(orderRepository.findPageWithItems(Mockito.eq(0L), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(order1, order2), PageRequest.ofSize(2), false));
+
+        //Then - preform GET requests, the page gets a weak ETag and a matching If-None-Match gets NOT MODIFIED without a body
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.get("/api/orders?size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", startsWith("W/\"")))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders?size=2").header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+
+        //Then - once an order on the page is updated, the ETag no longer matches
+        order2.setVersion(1L);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders?size=2").header("If-None-Match", eTag))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    public void getAllOrders_LastPageTest() throws Exception {
+        //Given - mock order on the last page
         Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
+        order.setId(3L);
+
+        //When - mock behavior of the keyset page query after cursor 2 with no further pages
+        when(orderRepository.findPageWithItems(Mockito.eq(2L), Mockito.any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(order), PageRequest.ofSize(2), false));
+
+        //Then - preform GET request and check there is no next link
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders?after=2&size=2"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.orders",hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.next").doesNotExist());
+    }
+
+    //SEARCH
+    @Test
+    public void searchOrdersTest() throws Exception {
+        //Given - mock order matching the search
+        Order order = new Order("Shrek", LocalDate.parse("2023-06-11"), "123 Swamp", 100.0);
         order.setId(1L);
 
-        //When - mock behavior of the orderRepository.findById and .save
-        when(orderRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(order));
-        when(orderRepository.save(Mockito.any(Order.class))).thenReturn(order);
+        //When - mock behavior of the specification query and return one page of results
+        when(orderRepository.findAllWithItems(Mockito.<Specification<Order>>any(), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(order), PageRequest.of(0, 1), 3));
+
+        //Then - preform GET request with filters, the page metadata and the next link are returned
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/search?customerName=Shrek&from=2023-01-01&to=2023-12-31&minTotal=50&size=1&sort=orderDate&direction=desc"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$._embedded.orders", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.page.totalElements", Matchers.is(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$._links.next.href", containsString("page=1")));
+    }
+
+    @Test
+    public void searchOrders_UnknownSortTest() throws Exception {
+        //Then - preform GET request sorted by a property that is not indexed
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/search?sort=shippingAddress"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    //UPDATE
+    @Test
+    public void updateOrderTest() throws Exception {
+        //When - mock an order at version 2 and the version guarded orderRepository.updateByIdAndVersion, one row updated
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, 2L)));
+        when(orderRepository.updateByIdAndVersion(Mockito.eq(1L), Mockito.eq(2L), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.eq(20000L), Mockito.eq("USD"), Mockito.any())).thenReturn(1);
 
         //Then - preform PUT request to update existing order
         mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"customerName\": \"Fiona\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": 200.0}"))
                 .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(1))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.customerName").value("Fiona"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.shippingAddress").value("123 Swamp Ave"))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.total").value(200.0));
+        Mockito.verify(orderRollupService).updated(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void updateOrder_VersionMatchesTest() throws Exception {
+        //When - mock an order at version 3 and the conditional orderRepository.updateByIdAndVersion for version 3
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, 3L)));
+        when(orderRepository.updateByIdAndVersion(Mockito.eq(1L), Mockito.eq(3L), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(1);
+
+        //Then - preform PUT request with If-Match, the new version is returned as ETag
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Fiona\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": 200.0}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"4\""))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version").value(4));
+    }
+
+    @Test
+    public void updateOrder_StaleVersionTest() throws Exception {
+        //When - mock an order that exists but no longer has version 3
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, 5L)));
+
+        //Then - preform PUT request with a stale version in the body
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Fiona\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": 200.0, \"version\": 3}"))
+                .andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+    }
+
+    @Test
+    public void updateOrder_KeepsChangingTest() throws Exception {
+        //When - mock an order that another writer changes between every snapshot and update (no row updated)
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, 2L)));
+
+        //Then - preform PUT request without a version, it gives up after 3 attempts with SERVICE UNAVAILABLE and Retry-After
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Fiona\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": 200.0}"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "1"));
+        verify(orderRepository, Mockito.times(3)).updateByIdAndVersion(Mockito.eq(1L), Mockito.eq(2L), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void updateOrder_NullVersionTest() throws Exception {
+        //When - mock an order written before it had a version, then updated at version 0
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, null)));
+        when(orderRepository.updateByIdAndVersion(Mockito.eq(1L), Mockito.eq(0L), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.any(), Mockito.any())).thenReturn(1);
+
+        //Then - preform PUT request, the version is initialized to 0 first and the update returns version 1
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Fiona\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": 200.0}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1\""));
+        verify(orderRepository).initializeVersion(1L);
     }
 
     //DELETE
     @Test
     public void deleteOrderTest() throws Exception {
-        //Given -mock order
-        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
-        order.setId(1L);
-
-        //When - mock behavior of orderRepository.findById
-        when(orderRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(order));
+        //When - mock an order at version 0 and the version guarded orderRepository.deleteByIdAndVersion, one row deleted
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, 0L)));
+        when(orderRepository.deleteByIdAndVersion(1L, 0L)).thenReturn(1);
 
         //Then - preform DELETE request to delete order
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/1"))
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
+        Mockito.verify(orderRollupService).deleted(Mockito.any());
+        Mockito.verify(orderEventService).deleted(1L, 0L);
+    }
+
+    @Test
+    public void deleteOrder_KeepsChangingTest() throws Exception {
+        //When - mock an order whose version guarded delete never matches (changed by others every time)
+        when(orderRepository.findSnapshotById(1L)).thenReturn(Optional.of(new OrderSnapshot(1L, "Shrek", LocalDate.now(), 10000L, 0L)));
+
+        //Then - preform DELETE request, SERVICE UNAVAILABLE after 3 attempts
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/1"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+        verify(orderRepository, Mockito.times(3)).deleteByIdAndVersion(1L, 0L);
     }
 
     //VALIDATION TEST CASES:
@@ -155,13 +585,39 @@ class OrderControllerTest {
     }
 
     @Test
-    public void updateOrder_OrderDoesNotExist() throws Exception {
-        //Given - mock order
-        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
-        order.setId(1L);
+    public void createOrder_ErrorsAsJsonTest() throws Exception {
+        //Then - preform POST request with an invalid order and an Idempotency-Key, the errors come back one object per field
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header(IdempotencyService.HEADER, "abc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0, \"currency\": \"EUR\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].field", Matchers.is("customerName")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[0].message", Matchers.is("Customer name is required")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[1].field", Matchers.is("currency")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.errors[1].message", Matchers.is("Currency must be USD")));
+        //Then - an invalid order never claims the key
+        Mockito.verifyNoInteractions(idempotencyService);
+    }
+
+    @Test
+    public void updateOrder_ErrorsTest() throws Exception {
+        //Then - preform PUT request with an invalid order, BAD REQUEST with the same messages as on create
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": -100.0}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.content().string(containsString("Customer name is required")))
+                .andExpect(MockMvcResultMatchers.content().string(containsString("Total must be a positive value")));
+        //Then - nothing was written
+        verify(orderRepository, Mockito.never()).updateByIdAndVersion(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyLong(), Mockito.any(), Mockito.any());
+    }
 
-        //When - mock behavior of orderRepository.findById
-        when(orderRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+    @Test
+    public void updateOrder_OrderDoesNotExist() throws Exception {
+        //When - mock orderRepository.findSnapshotById, no order found
+        when(orderRepository.findSnapshotById(5L)).thenReturn(Optional.empty());
 
         //Then - preform PUT request to update an order that is nonexistent
         mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/5")
@@ -172,16 +628,73 @@ class OrderControllerTest {
 
     @Test
     public void deleteOrder_OrderDoesNotExist() throws Exception {
-        //Given - mock order
-        Order order = new Order();
-        order.setId(7L);
-
-        //When - mock orderRepository.findById
-        when(orderRepository.findById(Mockito.anyLong())).thenReturn(Optional.empty());
+        //When - mock orderRepository.findSnapshotById, no order found
+        when(orderRepository.findSnapshotById(7L)).thenReturn(Optional.empty());
 
         //Then - preform DELETE request to delete a nonexistent order
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/7"))
                 .andExpect(MockMvcResultMatchers.status().isNotFound());
     }
 
+    @Test
+    public void updateOrder_ArchivedTest() throws Exception {
+        //When - mock an order that was moved to the archive, gone from the orders table
+        when(orderRepository.findSnapshotById(5L)).thenReturn(Optional.empty());
+        when(archivedOrderRepository.existsById(5L)).thenReturn(true);
+
+        //Then - preform PUT request, archived orders are read-only so the answer is CONFLICT
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerName\": \"Fiona\", \"shippingAddress\": \"123 Swamp Ave\", \"total\": 200.0}"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void deleteOrder_ArchivedTest() throws Exception {
+        //When - mock an order that was moved to the archive, gone from the orders table
+        when(orderRepository.findSnapshotById(7L)).thenReturn(Optional.empty());
+        when(archivedOrderRepository.existsById(7L)).thenReturn(true);
+
+        //Then - preform DELETE request, CONFLICT and nothing deleted
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/7"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+        verify(orderRepository, Mockito.never()).deleteByIdAndVersion(Mockito.any(), Mockito.any());
+    }
+
+    //BULK OPERATION TESTS
+    @Test
+    public void createOrdersBatchTest() throws Exception {
+        //When - mock behavior of orderBatchService.createAll with one created and one invalid order
+        when(orderBatchService.createAll(Mockito.anyList())).thenReturn(List.of(
+                BatchItemResult.of(0, 1L, 201),
+                BatchItemResult.invalid(1, null, List.of("customerName: Customer name is required"))));
+
+        //Then - preform POST request to create orders in bulk and check the per order results
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"customerName\": \"Shrek\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0},"
+                                + "{\"customerName\": \"\", \"shippingAddress\": \"123 Swamp\", \"total\": 100.0}]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is(201)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", Matchers.is(400)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].errors[0]", containsString("Customer name is required")));
+    }
+
+    @Test
+    public void deleteOrdersBatchTest() throws Exception {
+        //When - mock behavior of orderBatchService.deleteAll with one deleted and one missing order
+        when(orderBatchService.deleteAll(List.of(1L, 7L))).thenReturn(List.of(
+                BatchItemResult.of(0, 1L, 204),
+                BatchItemResult.of(1, 7L, 404)));
+
+        //Then - preform DELETE request to delete orders in bulk
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 7]"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", Matchers.is(204)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", Matchers.is(404)));
+    }
+
 }
@@ -0,0 +1,82 @@
+package com.testdrivendevelopment.OrderManagementSystem.controller;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.RevenueReport;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderRollupService;
+import com.testdrivendevelopment.OrderManagementSystem.service.RollupsNotReadyException;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(ReportController.class)
+class ReportControllerTest {
+    @Autowired
+    MockMvc mockMvc;
+    //mocking the rollups
+    @MockBean
+    private OrderRollupService orderRollupService;
+
+    @Test
+    public void getDailyRevenueTest() throws Exception {
+        //Given - mock report with one day that had orders
+        LocalDate from = LocalDate.parse("2023-06-01");
+        LocalDate to = LocalDate.parse("2023-06-30");
+        when(orderRollupService.daily(from, to)).thenReturn(new RevenueReport(from, to, 2, new BigDecimal("68.77"),
+                List.of(new DailyRevenue(LocalDate.parse("2023-06-11"), 2L, 6877L))));
+
+        //Then - preform GET request for the month
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/reports/daily?from=2023-06-01&to=2023-06-30"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.orderCount", Matchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.days", hasSize(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.days[0].day", Matchers.is("2023-06-11")));
+    }
+
+    @Test
+    public void getDailyRevenue_InvalidRangeTest() throws Exception {
+        //Then - preform GET request with the range upside down
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/reports/daily?from=2023-06-30&to=2023-06-01"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void getCustomerRevenueTest() throws Exception {
+        //When - mock rollup for Shrek and none for Farquaad
+        when(orderRollupService.customer("Shrek")).thenReturn(Optional.of(new CustomerRevenue("Shrek", 3L, 7035L)));
+        when(orderRollupService.customer("Farquaad")).thenReturn(Optional.empty());
+
+        //Then - preform GET requests for both customers
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/reports/customers/Shrek"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.orderCount", Matchers.is(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.revenue", Matchers.is(70.35)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/reports/customers/Farquaad"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    @Test
+    public void getDailyRevenue_NotReadyTest() throws Exception {
+        //When - mock the rollups still being built after startup
+        when(orderRollupService.daily(Mockito.any(), Mockito.any())).thenThrow(new RollupsNotReadyException());
+
+        //Then - preform GET request, SERVICE UNAVAILABLE with Retry-After
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/reports/daily"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().string("Retry-After", "5"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.testdrivendevelopment.OrderManagementSystem.datasource;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.ratelimit.ApiClients;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//primary and replica are two separate in-memory databases here, so where a query went shows in what it finds
+//not the dev profile: the replica only gets its schema in setUp, the seeding's reads would find no tables there
+@SpringBootTest(properties = {
+        "spring.profiles.active=test",
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "orders.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "orders.datasource.replica.username=sa",
+        "orders.rate-limit.enabled=false",
+        "spring.cache.type=none"})
+class ReadReplicaRoutingTest {
+    private static final long REPLICA_ONLY_ID = 1_000_000_000L;
+
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderService orderService;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    //Before each test is run, give the replica the primary's schema and an order the primary does not have
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("drop all objects");
+        primary.queryForList("script nodata", String.class).forEach(replica::execute);
+        replica.update("insert into orders (id, customer_name, order_date, shipping_address, total_minor, currency, version) "
+                + "values (?, 'Replica Customer', current_date, '1 Replica St', 1000, 'USD', 0)", REPLICA_ONLY_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadReplicaRoutingDataSource.usePrimaryOnly(false);
+    }
+
+    @Test
+    void shouldReadFromReplica() {
+        // Given - an order that only exists on the replica
+
+        // When - it is looked up through the repository (a read-only transaction)
+        // Then - the replica answered
+        assertThat(orderRepository.existsById(REPLICA_ONLY_ID)).isTrue();
+    }
+
+    @Test
+    void shouldLoadCachedOrdersFromPrimary() {
+        // Given - an order that only exists on the replica
+
+        // When - it is read by id, the read that fills the order cache
+        // Then - the primary answered, a lagging replica never ends up in the cache
+        assertThat(orderRepository.findById(REPLICA_ONLY_ID)).isEmpty();
+    }
+
+    @Test
+    void shouldWriteToPrimary() {
+        // Given - a new order
+        Order order = new Order("Primary Customer", LocalDate.now(), "1 Primary St", new BigDecimal("25.00"));
+
+        // When - it is created
+        Order created = orderService.create(order);
+
+        // Then - the row is on the primary and not on the replica
+        assertThat(primary.queryForObject("select count(*) from orders where id = ?", Long.class, created.getId())).isEqualTo(1);
+        assertThat(replica.queryForObject("select count(*) from orders where id = ?", Long.class, created.getId())).isZero();
+    }
+
+    @Test
+    void shouldReadYourWritesFromPrimary() throws Exception {
+        // Given - a client that has just created an order
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(new ApiClients(Set.of()), Duration.ofSeconds(5), 1000);
+        MockHttpServletRequest write = request("POST", "10.0.0.1");
+        interceptor.preHandle(write, new MockHttpServletResponse(), null);
+        interceptor.afterCompletion(write, new MockHttpServletResponse(), null, null);
+
+        // When - the same client reads
+        interceptor.preHandle(request("GET", "10.0.0.1"), new MockHttpServletResponse(), null);
+
+        // Then - the read goes to the primary, which does not have the replica's order
+        assertThat(ReadReplicaRoutingDataSource.currentRoute()).isEqualTo(ReadReplicaRoutingDataSource.Route.PRIMARY);
+        assertThat(orderRepository.existsById(REPLICA_ONLY_ID)).isFalse();
+
+        // Then - another client still reads from the replica
+        interceptor.afterCompletion(request("GET", "10.0.0.1"), new MockHttpServletResponse(), null, null);
+        interceptor.preHandle(request("GET", "10.0.0.2"), new MockHttpServletResponse(), null);
+        assertThat(orderRepository.existsById(REPLICA_ONLY_ID)).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String method, String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/orders");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+}
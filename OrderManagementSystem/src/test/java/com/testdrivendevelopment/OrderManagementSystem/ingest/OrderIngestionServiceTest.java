@@ -0,0 +1,201 @@
+package com.testdrivendevelopment.OrderManagementSystem.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testdrivendevelopment.OrderManagementSystem.model.IngestionStatus;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderBatchService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doAnswer;
+
+class OrderIngestionServiceTest {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void shouldWriteAcceptedOrdersInTheBackground() throws Exception {
+        // Given - a started ingestion service whose batch writer assigns ids
+        OrderBatchService orderBatchService = Mockito.mock(OrderBatchService.class);
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.forEach(order -> order.setId(ids.incrementAndGet()));
+            return null;
+        }).when(orderBatchService).insertAll(Mockito.anyList());
+        OrderIngestionService service = service(orderBatchService, 10);
+        service.start();
+
+        // When - an order is submitted
+        UUID ticket = service.submit(new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0)).orElseThrow();
+
+        // Then - it is eventually written, gets its id and the journal is emptied
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.status(ticket).map(IngestionStatus::state).orElse(null) != IngestionStatus.State.WRITTEN
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        service.stop();
+        assertThat(service.status(ticket)).hasValueSatisfying(status -> assertThat(status.orderId()).isEqualTo(1L));
+        assertThat(Files.size(dataDir.resolve("ingest.journal"))).isZero();
+    }
+
+    @Test
+    void shouldRejectWhenTheQueueIsFull() throws Exception {
+        // Given - a service with room for one order whose writer is stuck on the first write
+        OrderBatchService orderBatchService = Mockito.mock(OrderBatchService.class);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return null;
+        }).when(orderBatchService).insertAll(Mockito.anyList());
+        OrderIngestionService service = service(orderBatchService, 1);
+        service.start();
+        service.submit(new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0)).orElseThrow();
+        writing.await();
+
+        // When - another order is submitted while the only slot is still taken
+        Optional<UUID> rejected = service.submit(new Order("Donkey", LocalDate.now(), "456 Dragon's Den", 45.32));
+        release.countDown();
+        service.stop();
+
+        // Then - it is rejected (backpressure) and a stopped service accepts nothing either
+        assertThat(rejected).isEmpty();
+        assertThatThrownBy(() -> service.submit(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45)))
+                .isInstanceOf(IngestionStoppedException.class);
+    }
+
+    @Test
+    void shouldReplayOrdersLeftInTheJournal() throws Exception {
+        // Given - a journal with one order accepted and never committed (crash before the write)
+        Path journal = dataDir.resolve("ingest.journal");
+        UUID ticket = UUID.randomUUID();
+        Files.writeString(journal, "A " + ticket + " " + objectMapper.writeValueAsString(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45)) + "\n"
+                + "A " + UUID.randomUUID() + " {\"customerName\": \"torn");
+        OrderBatchService orderBatchService = Mockito.mock(OrderBatchService.class);
+        OrderIngestionService service = service(orderBatchService, 10);
+
+        // When - the service starts
+        service.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.status(ticket).map(IngestionStatus::state).orElse(null) != IngestionStatus.State.WRITTEN
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        service.stop();
+
+        // Then - the complete order is written again and the torn line is ignored
+        Mockito.verify(orderBatchService).insertAll(Mockito.argThat(orders -> orders.size() == 1
+                && orders.get(0).getCustomerName().equals("Fiona")));
+    }
+
+    @Test
+    void shouldKeepOrdersWhileTheDatabaseIsUnavailable() throws Exception {
+        // Given - a writer whose database is down for the first two attempts
+        OrderBatchService orderBatchService = Mockito.mock(OrderBatchService.class);
+        AtomicInteger attempts = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new CannotCreateTransactionException("database down");
+            }
+            List<Order> orders = invocation.getArgument(0);
+            orders.forEach(order -> order.setId(1L));
+            return null;
+        }).when(orderBatchService).insertAll(Mockito.anyList());
+        OrderIngestionService service = service(orderBatchService, 10);
+        service.start();
+
+        // When - an order is accepted
+        UUID ticket = service.submit(new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0)).orElseThrow();
+        awaitState(service, ticket, IngestionStatus.State.WRITTEN);
+        service.stop();
+
+        // Then - it stayed queued (and journaled) until the database was back, and was written then instead of failing
+        assertThat(service.status(ticket)).hasValueSatisfying(status -> assertThat(status.state()).isEqualTo(IngestionStatus.State.WRITTEN));
+        assertThat(attempts.get()).isEqualTo(3);
+        assertThat(Files.size(dataDir.resolve("ingest.journal"))).isZero();
+    }
+
+    @Test
+    void shouldOnlyFailTheOrderTheDatabaseRejects() throws Exception {
+        // Given - a writer that rejects any write containing Donkey's order (a constraint violation)
+        OrderBatchService orderBatchService = Mockito.mock(OrderBatchService.class);
+        AtomicLong ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            if (orders.stream().anyMatch(order -> order.getCustomerName().equals("Donkey"))) {
+                throw new DataIntegrityViolationException("constraint violated");
+            }
+            orders.forEach(order -> order.setId(ids.incrementAndGet()));
+            return null;
+        }).when(orderBatchService).insertAll(Mockito.anyList());
+        OrderIngestionService service = service(orderBatchService, 10);
+        service.start();
+
+        // When - a good and a bad order are accepted
+        UUID good = service.submit(new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0)).orElseThrow();
+        UUID bad = service.submit(new Order("Donkey", LocalDate.now(), "456 Dragon's Den", 45.32)).orElseThrow();
+        awaitState(service, good, IngestionStatus.State.WRITTEN);
+        awaitState(service, bad, IngestionStatus.State.FAILED);
+        service.stop();
+
+        // Then - only the rejected order failed, and both left the journal (the bad one is never going to be written)
+        assertThat(service.status(good)).hasValueSatisfying(status -> assertThat(status.state()).isEqualTo(IngestionStatus.State.WRITTEN));
+        assertThat(service.status(bad)).hasValueSatisfying(status -> assertThat(status.state()).isEqualTo(IngestionStatus.State.FAILED));
+        assertThat(Files.size(dataDir.resolve("ingest.journal"))).isZero();
+    }
+
+    @Test
+    void shouldLeaveUnwrittenOrdersInTheJournalWhenStopping() throws Exception {
+        // Given - a writer whose database stays down
+        OrderBatchService orderBatchService = Mockito.mock(OrderBatchService.class);
+        doAnswer(invocation -> {
+            throw new CannotCreateTransactionException("database down");
+        }).when(orderBatchService).insertAll(Mockito.anyList());
+        OrderIngestionService service = service(orderBatchService, 10);
+        service.start();
+        UUID ticket = service.submit(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45)).orElseThrow();
+
+        // When - the service stops before the order could be written
+        service.stop();
+
+        // Then - it is still pending and still in the journal, replayed at the next start
+        assertThat(service.status(ticket)).hasValueSatisfying(status -> assertThat(status.state()).isEqualTo(IngestionStatus.State.PENDING));
+        assertThat(Files.readString(dataDir.resolve("ingest.journal"))).contains(ticket.toString());
+    }
+
+    private static void awaitState(OrderIngestionService service, UUID ticket, IngestionStatus.State state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.status(ticket).map(IngestionStatus::state).orElse(null) != state
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private OrderIngestionService service(OrderBatchService orderBatchService, int capacity) {
+        return new OrderIngestionService(orderBatchService, objectMapper, new SimpleMeterRegistry(),
+                capacity, 100, dataDir.resolve("ingest.journal"), false);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.testdrivendevelopment.OrderManagementSystem.metrics;
+
+import com.testdrivendevelopment.OrderManagementSystem.controller.OrderController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderApiMetricsInterceptorTest {
+
+    @Test
+    void shouldTimeRequestByOperationAndOutcome() throws Exception {
+        // Given - an interceptor and the getOrderById handler
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderApiMetricsInterceptor interceptor = new OrderApiMetricsInterceptor(registry);
+        HandlerMethod handler = new HandlerMethod(Mockito.mock(OrderController.class),
+                OrderController.class.getMethod("getOrderById", Long.class));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When - the request completes with NOT FOUND
+        interceptor.preHandle(request, response, handler);
+        response.setStatus(404);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        // Then - one request is recorded for operation getOrderById with outcome not-found
+        assertThat(registry.get(OrderApiMetricsInterceptor.METRIC)
+                .tag("operation", "getOrderById")
+                .tag("outcome", "not-found")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldMapStatusToOutcome() {
+        assertThat(OrderApiMetricsInterceptor.outcome("GET", 200, null)).isEqualTo("found");
+        assertThat(OrderApiMetricsInterceptor.outcome("POST", 201, null)).isEqualTo("success");
+        assertThat(OrderApiMetricsInterceptor.outcome("POST", 400, null)).isEqualTo("validation-error");
+        assertThat(OrderApiMetricsInterceptor.outcome("PUT", 412, null)).isEqualTo("conflict");
+        assertThat(OrderApiMetricsInterceptor.outcome("GET", 200, new IllegalStateException())).isEqualTo("error");
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+import com.testdrivendevelopment.OrderManagementSystem.controller.OrderController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitInterceptorTest {
+
+    @Test
+    void shouldRefillTokensOverTime() {
+        // Given - a bucket of 2 tokens refilled at 10 per second
+        long now = 0L;
+        TokenBucket bucket = new TokenBucket(2, 10, now);
+
+        // When - 3 requests come at once
+        // Then - the burst is allowed, the third waits for the next token (100ms)
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isEqualTo(Duration.ofMillis(100).toNanos());
+
+        // Then - 100ms later one token is back, not two
+        now += Duration.ofMillis(100).toNanos();
+        assertThat(bucket.tryAcquire(now)).isZero();
+        assertThat(bucket.tryAcquire(now)).isPositive();
+    }
+
+    @Test
+    void shouldLimitEachClientAndBudgetSeparately() throws Exception {
+        // Given - budgets of 2 requests (standard) and 1 request (expensive, for getAllOrders) per client
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(registry, new ApiClients(Set.of()),
+                new Budget("standard", 2, 0.001), new Budget("expensive", 1, 0.001),
+                Set.of("getAllOrders"), 1000, Duration.ofMinutes(10));
+        HandlerMethod getOrderById = handler("getOrderById", Long.class);
+        HandlerMethod getAllOrders = handler("getAllOrders", Long.class, Integer.class);
+
+        // When - client "a" (its remote address) lists once and then lists again
+        // Then - the second listing is refused with Retry-After, while its single order reads still have their own budget
+        assertThat(interceptor.preHandle(request("a"), new MockHttpServletResponse(), getAllOrders)).isTrue();
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(request("a"), refused, getAllOrders)).isFalse();
+        assertThat(refused.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(Long.parseLong(refused.getHeader("Retry-After"))).isPositive();
+        assertThat(interceptor.preHandle(request("a"), new MockHttpServletResponse(), getOrderById)).isTrue();
+
+        // Then - client "b" is not affected by client "a"
+        assertThat(interceptor.preHandle(request("b"), new MockHttpServletResponse(), getAllOrders)).isTrue();
+        assertThat(registry.get(RateLimitInterceptor.METRIC).tag("budget", "expensive").tag("outcome", "rejected")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldOnlyTrustIssuedApiKeys() throws Exception {
+        // Given - one request of budget per client and one issued key
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(new SimpleMeterRegistry(), new ApiClients(Set.of("issued")),
+                new Budget("standard", 1, 0.001), new Budget("expensive", 1, 0.001),
+                Set.of(), 1000, Duration.ofMinutes(10));
+        HandlerMethod getOrderById = handler("getOrderById", Long.class);
+
+        // When - one address uses its budget, then sends made up keys
+        assertThat(interceptor.preHandle(request("a"), new MockHttpServletResponse(), getOrderById)).isTrue();
+
+        // Then - a made up key does not get a fresh budget, the issued key does
+        assertThat(interceptor.preHandle(request("a", "made-up-1"), new MockHttpServletResponse(), getOrderById)).isFalse();
+        assertThat(interceptor.preHandle(request("a", "made-up-2"), new MockHttpServletResponse(), getOrderById)).isFalse();
+        assertThat(interceptor.preHandle(request("a", "issued"), new MockHttpServletResponse(), getOrderById)).isTrue();
+    }
+
+    private static HandlerMethod handler(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return new HandlerMethod(Mockito.mock(OrderController.class), OrderController.class.getMethod(name, parameterTypes));
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddress, String apiKey) {
+        MockHttpServletRequest request = request(remoteAddress);
+        request.addHeader(ApiClients.HEADER, apiKey);
+        return request;
+    }
+}
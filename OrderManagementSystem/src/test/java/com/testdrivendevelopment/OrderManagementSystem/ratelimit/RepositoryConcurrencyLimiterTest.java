@@ -0,0 +1,99 @@
+package com.testdrivendevelopment.OrderManagementSystem.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class RepositoryConcurrencyLimiterTest {
+
+    //After each test, leave no request bound to the test thread
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldShedRequestsBeyondTheLimit() throws Throwable {
+        // Given - a limit of one request thread, held by a request whose repository call is blocked
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(registry, 1, Duration.ofMillis(10));
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ProceedingJoinPoint slowCall = Mockito.mock(ProceedingJoinPoint.class);
+        when(slowCall.proceed()).thenAnswer(invocation -> {
+            inCall.countDown();
+            release.await();
+            return "slow";
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> first = executor.submit(() -> {
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+                try {
+                    return limiter.limit(slowCall);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            inCall.await();
+
+            // When - another request calls the repository meanwhile
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            ProceedingJoinPoint call = Mockito.mock(ProceedingJoinPoint.class);
+            when(call.proceed()).thenReturn("fast");
+
+            // Then - it is shed, and admitted again once the first one is done
+            assertThatThrownBy(() -> limiter.limit(call)).isInstanceOf(RepositoryBusyException.class);
+            assertThat(registry.get(RepositoryConcurrencyLimiter.METRIC + ".rejected").counter().count()).isEqualTo(1);
+            release.countDown();
+            assertThat(first.get()).isEqualTo("slow");
+            assertThat(limiter.limit(call)).isEqualTo("fast");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldHoldOnePermitForNestedCalls() throws Throwable {
+        // Given - a limit of one request thread
+        RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(new SimpleMeterRegistry(), 1, Duration.ofMillis(10));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        ProceedingJoinPoint repositoryCall = Mockito.mock(ProceedingJoinPoint.class);
+        when(repositoryCall.proceed()).thenReturn("saved");
+        ProceedingJoinPoint serviceCall = Mockito.mock(ProceedingJoinPoint.class);
+        when(serviceCall.proceed()).thenAnswer(invocation -> limiter.limit(repositoryCall));
+
+        // When - a service call (one transaction) calls the repository
+        // Then - the repository call runs under the permit of the service call, which is free again afterwards
+        assertThat(limiter.limit(serviceCall)).isEqualTo("saved");
+        assertThat(limiter.limit(repositoryCall)).isEqualTo("saved");
+    }
+
+    @Test
+    void shouldNotLimitWorkOutsideRequests() throws Throwable {
+        // Given - a limit of zero, nothing would be admitted
+        RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(new SimpleMeterRegistry(), 0, Duration.ofMillis(10));
+        ProceedingJoinPoint call = Mockito.mock(ProceedingJoinPoint.class);
+        when(call.proceed()).thenReturn("written");
+
+        // When - the ingestion writer or a scheduled job calls the repository (no request bound to the thread)
+        // Then - it goes through
+        assertThat(limiter.limit(call)).isEqualTo("written");
+    }
+}
@@ -0,0 +1,139 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.customerNameIs;
+import static org.assertj.core.api.Assertions.assertThat;
+
+//SQL statements per read of orders with items, counted by the Hibernate statistics: they must not grow with the number of orders
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderItemFetchTest {
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    //Before each test is run, delete orders created for test purposes and reset the counters
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void shouldListPageOfOrdersWithItemsInTwoStatements() {
+        // Given - 40 orders with 3 items each
+        saveOrdersWithItems(40, 3);
+
+        for (int pageSize : new int[] {5, 40}) {
+            // When - a page of the listing is read and every item of it is used, as serializing it does
+            entityManager.clear();
+            statistics.clear();
+            Slice<Order> page = orderRepository.findPageWithItems(0L, PageRequest.ofSize(pageSize));
+            int items = page.getContent().stream().mapToInt(order -> order.getItems().size()).sum();
+
+            // Then - one statement for the orders and one for all their items, whatever the page size
+            assertThat(items).isEqualTo(pageSize * 3);
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldSearchOrdersWithItemsInConstantStatements() {
+        // Given - 40 orders with 3 items each, all of the same customer
+        saveOrdersWithItems(40, 3);
+        entityManager.clear();
+        statistics.clear();
+
+        // When - a page of the search is read with its items
+        Page<Order> page = orderRepository.findAllWithItems(customerNameIs("Shrek"), PageRequest.of(0, 20));
+        int items = page.getContent().stream().mapToInt(order -> order.getItems().size()).sum();
+
+        // Then - the page, the count and the items
+        assertThat(items).isEqualTo(60);
+        assertThat(page.getTotalElements()).isEqualTo(40);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldFindOrderWithItemsInOneStatement() {
+        // Given - an order with 3 items
+        Long id = saveOrdersWithItems(1, 3).get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        // When - it is read by id
+        Order order = orderRepository.findById(id).orElseThrow();
+
+        // Then - the items came with it
+        assertThat(order.getItems()).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldInsertItemsInBatches() {
+        // Given - an order with 200 items
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0);
+        for (int i = 0; i < 200; i++) {
+            order.addItem(new OrderItem("SKU-" + i, 1, 1.0));
+        }
+        statistics.clear();
+
+        // When - it is saved
+        orderRepository.save(order);
+        entityManager.flush();
+
+        // Then - 201 rows inserted with at most 8 statements, not one per row: one insert per table sent as JDBC batches,
+        // plus the sequence calls (pooled by 50), how many depends on the ids left from earlier tests: up to 1 of orders_seq
+        // and 5 of order_items_seq (4 blocks of 50, one more when the first block is partly used or the pool starts)
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(201);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        assertThat(order.getTotal()).isEqualByComparingTo("200.00");
+    }
+
+    @Test
+    void shouldDeleteItemsWithTheirOrder() {
+        // Given - an order with 3 items
+        Order order = saveOrdersWithItems(1, 3).get(0);
+
+        // When - the order is deleted with a single statement
+        orderRepository.deleteByIdAndVersion(order.getId(), order.getVersion());
+
+        // Then - the database deleted its items too
+        assertThat(orderItemRepository.count()).isZero();
+    }
+
+    private List<Order> saveOrdersWithItems(int orders, int itemsPerOrder) {
+        List<Order> saved = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order("Shrek", LocalDate.now(), i + " Swamp Ave", 1.0);
+            for (int j = 0; j < itemsPerOrder; j++) {
+                order.addItem(new OrderItem("SKU-" + j, j + 1, 2.50));
+            }
+            saved.add(order);
+        }
+        orderRepository.saveAll(saved);
+        entityManager.flush();
+        return saved;
+    }
+}
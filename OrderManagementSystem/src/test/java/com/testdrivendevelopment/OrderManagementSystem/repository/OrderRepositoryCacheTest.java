@@ -0,0 +1,108 @@
+package com.testdrivendevelopment.OrderManagementSystem.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.service.OrderArchiveService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class OrderRepositoryCacheTest {
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Cache<Object, Object> cache;
+
+    //Before each test is run, start from an empty cache
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    void setUp() {
+        cache = (Cache<Object, Object>) cacheManager.getCache(OrderRepository.ORDERS_CACHE).getNativeCache();   //transaction aware, wraps the Caffeine cache
+        cache.invalidateAll();
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        // Given - a saved order
+        Order savedOrder = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        long hitsBefore = cache.stats().hitCount();
+
+        // When - read it twice
+        orderRepository.findById(savedOrder.getId());
+        orderRepository.findById(savedOrder.getId());
+
+        // Then - the second read is a cache hit (checked first, getIfPresent counts as a hit too)
+        assertThat(cache.stats().hitCount()).isEqualTo(hitsBefore + 1);
+        assertThat(cache.getIfPresent(savedOrder.getId())).isNotNull();
+    }
+
+    @Test
+    void shouldEvictOnSaveAndDelete() {
+        // Given - a saved and cached order
+        Order savedOrder = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        orderRepository.findById(savedOrder.getId());
+
+        // When - save it again, then the cached copy is gone
+        Order reloaded = orderRepository.findById(savedOrder.getId()).orElseThrow();
+        orderRepository.save(reloaded);
+        assertThat(cache.getIfPresent(savedOrder.getId())).isNull();
+
+        // Then - deleting evicts as well and the order is no longer found
+        orderRepository.findById(savedOrder.getId());
+        orderRepository.deleteById(savedOrder.getId());
+        assertThat(cache.getIfPresent(savedOrder.getId())).isNull();
+        assertThat(orderRepository.findById(savedOrder.getId())).isEmpty();
+    }
+
+    @Test
+    void shouldNotKeepTheOldVersionReadDuringAnUpdate() {
+        // Given - a saved order at version 0
+        Order savedOrder = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+
+        // When - another thread reads (and caches) it while the update is written but not committed yet
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderRepository.updateByIdAndVersion(savedOrder.getId(), 0L, "Fiona", LocalDate.now(), "Far Far Away Castle", 4045L, "USD", Instant.now());
+            CompletableFuture.runAsync(() -> orderRepository.findById(savedOrder.getId())).join();
+        });
+
+        // Then - the eviction waited for the commit, the next read gets the new version
+        assertThat(cache.getIfPresent(savedOrder.getId())).isNull();
+        assertThat(orderRepository.findById(savedOrder.getId())).hasValueSatisfying(order -> {
+            assertThat(order.getVersion()).isEqualTo(1L);
+            assertThat(order.getShippingAddress()).isEqualTo("Far Far Away Castle");
+        });
+    }
+
+    @Test
+    void shouldEvictArchivedOrders() {
+        // Given - a cached order from 2022
+        Order savedOrder = orderRepository.save(new Order("Fiona", LocalDate.parse("2022-06-01"), "123 Swamp Ave", 40.45));
+        orderRepository.findById(savedOrder.getId());
+
+        // When - orders before 2023 are moved to the archive, a bulk delete
+        orderArchiveService.archiveBefore(LocalDate.parse("2023-01-01"));
+
+        // Then - the cached copy is gone with the row
+        assertThat(cache.getIfPresent(savedOrder.getId())).isNull();
+        assertThat(orderRepository.findById(savedOrder.getId())).isEmpty();
+    }
+
+}
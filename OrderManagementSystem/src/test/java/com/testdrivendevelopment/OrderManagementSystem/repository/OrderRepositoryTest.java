@@ -6,11 +6,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Optional;
 
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.customerNameIs;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.orderDateBetween;
+import static com.testdrivendevelopment.OrderManagementSystem.repository.OrderSpecifications.totalBetween;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
@@ -97,4 +106,92 @@ class OrderRepositoryTest {
         assertThat(optionalOrder).isEmpty();
     }
 
+    //KEYSET PAGINATION TESTS
+    @Test
+    void shouldFindNextPageAfterCursor() {
+        // Given - three saved orders
+        Order first = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        Order second = orderRepository.save(new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
+        orderRepository.save(new Order("Donkey", LocalDate.now(), "456 Dragon's Den", 45.32));
+
+        // When - retrieve a page of one order after the first one
+        Slice<Order> page = orderRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), PageRequest.ofSize(1));
+
+        // Then - only the second order is returned, there is a next page after it but none after the third
+        assertThat(page.getContent()).extracting(Order::getId).containsExactly(second.getId());
+        assertThat(page.hasNext()).isTrue();
+        assertThat(orderRepository.findByIdGreaterThanOrderByIdAsc(second.getId(), PageRequest.ofSize(1)).hasNext()).isFalse();
+    }
+
+    //SINGLE STATEMENT WRITE TESTS
+    @Test
+    void shouldUpdateOrderWithOneStatementAndIncrementVersion() {
+        // Given - a saved order
+        Order savedOrder = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        Long version = savedOrder.getVersion();
+
+        // When - update it at its current version, then again with the stale version
+        int updated = orderRepository.updateByIdAndVersion(savedOrder.getId(), version, "Fiona", LocalDate.now(), "Far Far Away Castle", 9999L, "USD", Instant.now());
+        int stale = orderRepository.updateByIdAndVersion(savedOrder.getId(), version, "Shrek", LocalDate.now(), "123 Swamp", 100L, "USD", Instant.now());
+
+        // Then - only the first update applied and the version moved forward
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isZero();
+        assertThat(orderRepository.findById(savedOrder.getId()))
+                .hasValueSatisfying(o -> {
+                    assertThat(o.getShippingAddress()).isEqualTo("Far Far Away Castle");
+                    assertThat(o.getVersion()).isEqualTo(version + 1);
+                });
+        assertThat(orderRepository.updateByIdAndVersion(savedOrder.getId() + 1000, version, "Shrek", LocalDate.now(), "123 Swamp", 100L, "USD", Instant.now())).isZero();
+    }
+
+    @Test
+    void shouldDeleteOrderWithOneStatement() {
+        // Given - a saved order
+        Order savedOrder = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+
+        // When - delete it twice at its version
+        int deleted = orderRepository.deleteByIdAndVersion(savedOrder.getId(), savedOrder.getVersion());
+        int deletedAgain = orderRepository.deleteByIdAndVersion(savedOrder.getId(), savedOrder.getVersion());
+
+        // Then - the first delete removed the row and the second found nothing
+        assertThat(deleted).isEqualTo(1);
+        assertThat(deletedAgain).isZero();
+        assertThat(orderRepository.findById(savedOrder.getId())).isEmpty();
+    }
+
+    //SEARCH TESTS
+    @Test
+    void shouldSearchByCustomerDateAndTotal() {
+        // Given - orders for two customers on different dates
+        Order match = orderRepository.save(new Order("Fiona", LocalDate.of(2023, 6, 11), "123 Swamp Ave", 40.45));
+        orderRepository.save(new Order("Fiona", LocalDate.of(2022, 1, 1), "123 Swamp Ave", 40.45));
+        orderRepository.save(new Order("Fiona", LocalDate.of(2023, 6, 12), "123 Swamp Ave", 400.0));
+        orderRepository.save(new Order("Shrek", LocalDate.of(2023, 6, 11), "123 Swamp", 40.45));
+
+        // When - search Fiona's 2023 orders up to 100
+        Page<Order> page = orderRepository.findAll(customerNameIs("Fiona")
+                        .and(orderDateBetween(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31)))
+                        .and(totalBetween(null, new BigDecimal("100"))),
+                PageRequest.of(0, 10, Sort.by("orderDate")));
+
+        // Then - only the matching order is returned
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(Order::getId).containsExactly(match.getId());
+    }
+
+    @Test
+    void shouldSearchWithoutFilters() {
+        // Given - two saved orders
+        orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        orderRepository.save(new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
+
+        // When - search with every filter left out, sorted by total descending
+        Page<Order> page = orderRepository.findAll(customerNameIs(null).and(orderDateBetween(null, null)).and(totalBetween(null, null)),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "total")));
+
+        // Then - every order is returned in total order
+        assertThat(page.getContent()).extracting(Order::getCustomerName).containsExactly("Fiona", "Shrek");
+    }
+
 }
@@ -0,0 +1,188 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testdrivendevelopment.OrderManagementSystem.repository.IdempotencyRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(IdempotencyService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)     //the service commits its own transactions, like in the application
+class IdempotencyServiceTest {
+    private static final TypeReference<String> STRING = new TypeReference<>() { };
+
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    //Before each test is run, delete the keys stored by the previous one
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRunOnceAndReplayTheStoredResponse() throws Exception {
+        // Given - a call that counts how often it runs
+        AtomicInteger runs = new AtomicInteger();
+        IdempotencyService.Call<String> call = () -> ResponseEntity.status(HttpStatus.CREATED).body("order-" + runs.incrementAndGet());
+
+        // When - the same request is sent twice with the same key, and once more to a fresh instance (stored key only)
+        ResponseEntity<String> first = idempotencyService.execute("key-1", "POST /api/orders", "Shrek", STRING, call);
+        ResponseEntity<String> retry = idempotencyService.execute("key-1", "POST /api/orders", "Shrek", STRING, call);
+        ResponseEntity<String> otherInstance = new IdempotencyService(idempotencyRecordRepository, objectMapper, transactionManager,
+                Duration.ofHours(1), 100).execute("key-1", "POST /api/orders", "Shrek", STRING, call);
+
+        // Then - it ran once and the retries got the original response, marked as replayed
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(first.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+        for (ResponseEntity<String> replayed : List.of(retry, otherInstance)) {
+            assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+            assertThat(replayed.getBody()).isEqualTo("order-1");
+            assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        }
+    }
+
+    @Test
+    void shouldStoreTheResponseOfACallThatClearsThePersistenceContext() throws Exception {
+        // Given - a call that flushes and clears the persistence context as it goes, like the bulk create
+        IdempotencyService.Call<String> call = () -> {
+            entityManager.flush();
+            entityManager.clear();
+            return ResponseEntity.status(HttpStatus.OK).body("orders-1-2");
+        };
+        idempotencyService.execute("key-5", "POST /api/orders/batch", "Shrek", STRING, call);
+
+        // When - the request is replayed by an instance that only has the stored key
+        ResponseEntity<String> replayed = new IdempotencyService(idempotencyRecordRepository, objectMapper, transactionManager,
+                Duration.ofHours(1), 100).execute("key-5", "POST /api/orders/batch", "Shrek", STRING, call);
+
+        // Then - the stored response is the one of the call
+        assertThat(replayed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(replayed.getBody()).isEqualTo("orders-1-2");
+        assertThat(replayed.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void shouldRefuseTheKeyForADifferentRequest() throws Exception {
+        // Given - a key already used for Shrek's order
+        idempotencyService.execute("key-2", "POST /api/orders", "Shrek", STRING, () -> ResponseEntity.status(HttpStatus.CREATED).body("order-1"));
+
+        // When - the key is sent again with another order
+        ResponseEntity<String> response = idempotencyService.execute("key-2", "POST /api/orders", "Fiona", STRING,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("order-2"));
+
+        // Then - UNPROCESSABLE ENTITY (422) and nothing ran
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    void shouldRunAgainAfterAServerError() throws Exception {
+        // Given - a first attempt that failed with SERVICE UNAVAILABLE (503)
+        idempotencyService.execute("key-3", "POST /api/orders", "Shrek", STRING, () -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+
+        // When - the client retries with the same key
+        ResponseEntity<String> retry = idempotencyService.execute("key-3", "POST /api/orders", "Shrek", STRING,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("order-1"));
+
+        // Then - the retry ran, the failed attempt was not stored
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    }
+
+    @Test
+    void shouldCollapseConcurrentDuplicatesIntoOneRun() throws Exception {
+        // Given - a slow call and 8 clients sending the same request with the same key at once
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                responses.add(clients.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("key-4", "POST /api/orders", "Shrek", STRING, () -> {
+                        LockSupport.parkNanos(Duration.ofMillis(200).toNanos());
+                        return ResponseEntity.status(HttpStatus.CREATED).body("order-" + runs.incrementAndGet());
+                    });
+                }));
+            }
+
+            // When - they are released together
+            start.countDown();
+
+            // Then - one of them ran and every client got its response
+            for (Future<ResponseEntity<String>> response : responses) {
+                assertThat(response.get().getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                assertThat(response.get().getBody()).isEqualTo("order-1");
+            }
+            assertThat(runs.get()).isEqualTo(1);
+            assertThat(idempotencyRecordRepository.count()).isEqualTo(1);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldReleaseWaitingDuplicatesWhenTheFirstRequestFails() throws Exception {
+        // Given - a first request whose call fails with a constraint violation of its own (not the key insert)
+        CountDownLatch running = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<String>> first = clients.submit(() -> idempotencyService.execute("key-6", "POST /api/orders", "Shrek", STRING, () -> {
+                running.countDown();
+                LockSupport.parkNanos(Duration.ofMillis(300).toNanos());
+                throw new DataIntegrityViolationException("duplicate order");
+            }));
+            running.await();
+
+            // When - a duplicate arrives while it runs and waits for it
+            Future<ResponseEntity<String>> second = clients.submit(() -> idempotencyService.execute("key-6", "POST /api/orders", "Shrek", STRING,
+                    () -> ResponseEntity.status(HttpStatus.CREATED).body("order-1")));
+
+            // Then - the first fails, the duplicate is released and runs itself instead of waiting forever
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(DataIntegrityViolationException.class);
+            assertThat(second.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
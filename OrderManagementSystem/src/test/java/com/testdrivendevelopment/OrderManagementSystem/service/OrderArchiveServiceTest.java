@@ -0,0 +1,88 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEvent;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderEventRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "orders.archive.batch-size=2")   //small batches so a run takes several
+@Import({OrderArchiveService.class, OrderEventService.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class OrderArchiveServiceTest {
+    private static final LocalDate CUTOFF = LocalDate.parse("2023-01-01");
+
+    //a cache manager for the service to evict from (none, as @DataJpaTest configures it)
+    @TestConfiguration
+    @EnableCaching
+    static class CachingConfig {
+    }
+
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+
+    //Before each test is run, delete orders and events created for test purposes
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+        archivedOrderRepository.deleteAll();
+        orderEventRepository.deleteAll();
+    }
+
+    @Test
+    void shouldMoveOldOrdersToTheArchiveInBatches() {
+        // Given - three orders from 2022 and one from 2023
+        List<Order> old = orderRepository.saveAll(List.of(
+                new Order("Shrek", LocalDate.parse("2022-03-01"), "123 Swamp", 23.45),
+                new Order("Fiona", LocalDate.parse("2022-06-01"), "Far Far Away Castle", 40.45),
+                new Order("Donkey", LocalDate.parse("2022-12-31"), "456 Dragon's Den", 45.32)));
+        Order recent = orderRepository.save(new Order("Shrek", LocalDate.parse("2023-06-11"), "123 Swamp", 100.0));
+
+        // When - orders before 2023 are archived
+        int archived = orderArchiveService.archiveBefore(CUTOFF);
+
+        // Then - the old ones left the orders table, the recent one stayed
+        assertThat(archived).isEqualTo(3);
+        assertThat(orderRepository.findAll()).extracting(Order::getId).containsExactly(recent.getId());
+        assertThat(archivedOrderRepository.count()).isEqualTo(3);
+
+        // Then - an archived order reads back as it was
+        Order fiona = orderArchiveService.findById(old.get(1).getId()).orElseThrow();
+        assertThat(fiona.getCustomerName()).isEqualTo("Fiona");
+        assertThat(fiona.getShippingAddress()).isEqualTo("Far Far Away Castle");
+        assertThat(fiona.getTotal()).isEqualTo(new BigDecimal("40.45"));
+        assertThat(fiona.getOrderDate()).isEqualTo(LocalDate.parse("2022-06-01"));
+        assertThat(orderArchiveService.findById(recent.getId())).isEmpty();
+
+        // Then - each moved order left an ARCHIVED event for the change feed
+        assertThat(orderEventRepository.findAll())
+                .allSatisfy(event -> assertThat(event.getType()).isEqualTo(OrderEvent.Type.ARCHIVED))
+                .extracting(OrderEvent::getOrderId)
+                .containsExactlyInAnyOrderElementsOf(old.stream().map(Order::getId).toList());
+
+        // Then - a second run has nothing left to move
+        assertThat(orderArchiveService.archiveBefore(CUTOFF)).isZero();
+    }
+}
@@ -0,0 +1,153 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.ArchivedOrder;
+import com.testdrivendevelopment.OrderManagementSystem.model.BatchItemResult;
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(OrderBatchService.class)
+class OrderBatchServiceTest {
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private OrderBatchService orderBatchService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    //rollups are only applied after commit, which never happens in these rolled back tests
+    @MockBean
+    private OrderRollupService orderRollupService;
+    @MockBean
+    private OrderEventService orderEventService;
+
+    //Before each test is run, delete orders in the repository created for test purposes
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCreateValidOrdersAndReportInvalidOnes() {
+        // Given - two valid orders around an invalid one
+        List<Order> orders = List.of(
+                new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45),
+                new Order("", LocalDate.now(), "123 Swamp Ave", -1.0),
+                new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
+
+        // When - create them in one batch
+        List<BatchItemResult> results = orderBatchService.createAll(orders);
+
+        // Then - the valid ones are saved with ids, the invalid one gets its validation errors
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(201, 400, 201);
+        assertThat(results.get(0).id()).isNotNull();
+        assertThat(results.get(1).errors()).anyMatch(error -> error.contains("Customer name is required"));
+        assertThat(orderRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldInsertOrdersLeftOverFromARolledBackAttempt() {
+        // Given - an order with an item that still carries the ids and version of an attempt that was rolled back
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0);
+        order.addItem(new OrderItem("ONION-1", 2, 2.50));
+        order.setId(1_000_000L);
+        order.setVersion(0L);
+        order.getItems().get(0).setId(1_000_000L);
+
+        // When - it is inserted again
+        orderBatchService.insertAll(List.of(order));
+
+        // Then - it is persisted as a new order with new ids instead of failing as a detached entity
+        assertThat(order.getId()).isNotEqualTo(1_000_000L);
+        assertThat(orderRepository.findById(order.getId()))
+                .hasValueSatisfying(o -> assertThat(o.getItems()).hasSize(1));
+    }
+
+    @Test
+    void shouldUpdateExistingOrdersAndReportMissingOnes() {
+        // Given - a saved order and an update for it plus one for an unknown id
+        Order saved = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        Order update = new Order("Fiona", LocalDate.now(), "Far Far Away Castle", 99.99);
+        update.setId(saved.getId());
+        Order unknown = new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45);
+        unknown.setId(saved.getId() + 1000);
+
+        // When - update them in one batch
+        List<BatchItemResult> results = orderBatchService.updateAll(List.of(update, unknown));
+
+        // Then - the existing order is updated and the unknown one is not found
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(200, 404);
+        assertThat(orderRepository.findById(saved.getId()))
+                .hasValueSatisfying(o -> assertThat(o.getShippingAddress()).isEqualTo("Far Far Away Castle"));
+    }
+
+    @Test
+    void shouldOnlyUpdateOrdersAtTheVersionGiven() {
+        // Given - two saved orders, one updated at its current version and one at a version it no longer has
+        Order current = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        Order stale = orderRepository.save(new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
+        Order update = new Order("Fiona", LocalDate.now(), "Far Far Away Castle", 99.99);
+        update.setId(current.getId());
+        update.setVersion(current.getVersion());
+        Order staleUpdate = new Order("Shrek", LocalDate.now(), "Far Far Away Castle", 99.99);
+        staleUpdate.setId(stale.getId());
+        staleUpdate.setVersion(stale.getVersion() - 1);
+
+        // When - update them in one batch
+        List<BatchItemResult> results = orderBatchService.updateAll(List.of(update, staleUpdate));
+
+        // Then - the first is updated, the second gets PRECONDITION FAILED alone and keeps its address
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(200, 412);
+        assertThat(orderRepository.findById(stale.getId()))
+                .hasValueSatisfying(o -> assertThat(o.getShippingAddress()).isEqualTo("123 Swamp"));
+        assertThat(orderRepository.findById(current.getId()))
+                .hasValueSatisfying(o -> assertThat(o.getShippingAddress()).isEqualTo("Far Far Away Castle"));
+    }
+
+    @Test
+    void shouldDeleteExistingOrdersAndReportMissingOnes() {
+        // Given - two saved orders
+        Order first = orderRepository.save(new Order("Fiona", LocalDate.now(), "123 Swamp Ave", 40.45));
+        Order second = orderRepository.save(new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45));
+
+        // When - delete the first one, an unknown id and the first one again
+        List<BatchItemResult> results = orderBatchService.deleteAll(Arrays.asList(first.getId(), second.getId() + 1000, first.getId()));
+
+        // Then - only the first order is gone and each element has its own status
+        assertThat(results).extracting(BatchItemResult::status).containsExactly(204, 404, 404);
+        assertThat(orderRepository.findAll()).extracting(Order::getId).containsExactly(second.getId());
+    }
+
+    @Test
+    void shouldReportArchivedOrdersAsConflicts() {
+        // Given - an order that was moved to the archive
+        Order archived = new Order("Fiona", LocalDate.parse("2022-06-01"), "123 Swamp Ave", 40.45);
+        archived.setId(1_000_000L);
+        archivedOrderRepository.save(new ArchivedOrder(archived, new byte[0], Instant.now()));
+        Order update = new Order("Fiona", LocalDate.now(), "Far Far Away Castle", 99.99);
+        update.setId(archived.getId());
+
+        // When - it is updated and deleted in bulk, next to an unknown id
+        List<BatchItemResult> updated = orderBatchService.updateAll(List.of(update));
+        List<BatchItemResult> deleted = orderBatchService.deleteAll(List.of(archived.getId(), archived.getId() + 1));
+
+        // Then - CONFLICT for the archived order (read-only), NOT FOUND for the unknown one
+        assertThat(updated).extracting(BatchItemResult::status).containsExactly(409);
+        assertThat(deleted).extracting(BatchItemResult::status).containsExactly(409, 404);
+    }
+}
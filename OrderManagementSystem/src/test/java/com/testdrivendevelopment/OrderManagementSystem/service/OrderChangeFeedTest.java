@@ -0,0 +1,65 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChange;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChangeBatch;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.when;
+
+class OrderChangeFeedTest {
+
+    @Test
+    void shouldNotWaitForASlowStream() throws Exception {
+        // Given - one new change per read, and a stream whose client does not read (every write blocks)
+        OrderEventService orderEventService = Mockito.mock(OrderEventService.class);
+        when(orderEventService.read(Mockito.anyLong(), Mockito.anyInt())).thenAnswer(invocation -> {
+            long next = invocation.<Long>getArgument(0) + 1;
+            return new OrderChangeBatch(List.of(new OrderChange(next, OrderEvent.Type.UPDATED, 1L, next, Instant.now(), "{}")), next);
+        });
+        OrderChangeFeed feed = new OrderChangeFeed(orderEventService, 500, Duration.ofMinutes(30), Duration.ofMinutes(1));
+        CountDownLatch reading = new CountDownLatch(1);
+        AtomicInteger written = new AtomicInteger();
+        feed.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    reading.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.incrementAndGet();
+            }
+        }, 0L);
+
+        // When - the feed dispatches 30 ticks
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 30; i++) {
+                feed.dispatch();
+            }
+        });
+
+        // Then - the ticks never waited for the stream, which was skipped once 20 batches were waiting for it
+        Mockito.verify(orderEventService, Mockito.times(20)).read(Mockito.anyLong(), Mockito.anyInt());
+
+        // Then - they are all written once the client reads
+        reading.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written.get() < 20 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        feed.stop();
+        assertThat(written.get()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,138 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChange;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderChangeBatch;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderEvent;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderEventRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(OrderEventService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class OrderEventServiceTest {
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private OrderEventService orderEventService;
+    @Autowired
+    private OrderEventRepository orderEventRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    //Before each test is run, delete the events created for test purposes
+    @BeforeEach
+    void setUp() {
+        orderEventRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRecordChangesWithTheOrderAsJson() {
+        // Given - an order that was created and then deleted
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 23.45);
+        order.setId(7L);
+        order.setVersion(0L);
+        long from = lastPosition();
+
+        // When - both changes are recorded, positioned by the relay and read back
+        orderEventService.created(order);
+        orderEventService.deleted(7L, 0L);
+        orderEventService.relay(10);
+        OrderChangeBatch batch = orderEventService.read(from, 10);
+
+        // Then - the changes come in order, the created one with the order and the deleted one without
+        assertThat(batch.changes()).extracting(OrderChange::type).containsExactly(OrderEvent.Type.CREATED, OrderEvent.Type.DELETED);
+        assertThat(batch.changes().get(0).order()).contains("\"customerName\":\"Shrek\"").contains("\"total\":23.45");
+        assertThat(batch.changes().get(1).order()).isNull();
+        assertThat(batch.next()).isEqualTo(batch.changes().get(1).sequence());
+    }
+
+    @Test
+    void shouldRecordALargeOrder() {
+        // Given - an order with 200 items, far more JSON than a 4000 character column holds
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0);
+        for (int i = 0; i < 200; i++) {
+            order.addItem(new OrderItem("SKU-" + i, 1, 1.0));
+        }
+        order.setId(8L);
+        order.setVersion(0L);
+        long from = lastPosition();
+
+        // When - its creation is recorded, written out and read back
+        orderEventService.created(order);
+        orderEventRepository.flush();
+        orderEventService.relay(10);
+        OrderChangeBatch batch = orderEventService.read(from, 10);
+
+        // Then - the whole order came back
+        assertThat(batch.changes()).singleElement().satisfies(change -> {
+            assertThat(change.order().length()).isGreaterThan(4000);
+            assertThat(change.order()).contains("\"sku\":\"SKU-199\"");
+        });
+    }
+
+    @Test
+    void shouldDeliverALateCommitAfterTheChangesAlreadyRead() {
+        // Given - two events of which only the second one has committed so far, the relay positions it and a consumer reads it
+        OrderEvent late = save(1L, Instant.now());
+        OrderEvent early = save(2L, Instant.now());
+        orderEventRepository.delete(late);
+        orderEventRepository.flush();
+        orderEventService.relay(10);
+        long read = orderEventService.read(orderEventRepository.findById(early.getSequence()).orElseThrow().getPosition() - 1, 10).next();
+
+        // When - the first one commits late (its lower sequence written back) and the relay runs again
+        entityManager.createNativeQuery("insert into order_events (seq, type, order_id, order_version, created_at, payload) "
+                        + "values (?1, 'UPDATED', 1, 1, ?2, '{}')")
+                .setParameter(1, late.getSequence())
+                .setParameter(2, Instant.now())
+                .executeUpdate();
+        assertThat(orderEventService.relay(10)).isEqualTo(1);
+
+        // Then - the consumer gets it next, after the change it already read, instead of it being skipped
+        OrderChangeBatch next = orderEventService.read(read, 10);
+        assertThat(next.changes()).extracting(OrderChange::orderId).containsExactly(1L);
+        assertThat(next.next()).isEqualTo(read + 1);
+    }
+
+    @Test
+    void shouldCompactEventsOlderThanTheRetention() {
+        // Given - an event older than the 7 day retention and a recent one, both positioned
+        OrderEvent old = save(1L, Instant.now().minus(Duration.ofDays(8)));
+        OrderEvent recent = save(1L, Instant.now());
+        orderEventService.relay(10);
+
+        // When - the outbox is compacted
+        orderEventService.compact();
+
+        // Then - the old event is gone and a consumer still behind it has to resync
+        assertThat(orderEventRepository.findById(old.getSequence())).isEmpty();
+        assertThat(orderEventRepository.findById(recent.getSequence())).isPresent();
+        assertThat(orderEventService.isCompacted(old.getPosition() - 1)).isTrue();
+        assertThat(orderEventService.isCompacted(old.getPosition())).isFalse();
+        assertThat(orderEventService.firstPosition()).isEqualTo(old.getPosition());
+    }
+
+    private OrderEvent save(Long orderId, Instant createdAt) {
+        return orderEventRepository.save(new OrderEvent(OrderEvent.Type.UPDATED, orderId, 1L, createdAt, "{}"));
+    }
+
+    private long lastPosition() {
+        save(1L, Instant.now());
+        orderEventService.relay(10);
+        return orderEventService.read(0L, Integer.MAX_VALUE).next();
+    }
+}
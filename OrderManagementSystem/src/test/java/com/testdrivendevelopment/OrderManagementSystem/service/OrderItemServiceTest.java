@@ -0,0 +1,85 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(OrderItemService.class)
+class OrderItemServiceTest {
+    //@Autowired to wire dependencies, this case being by field injection
+    @Autowired
+    private OrderItemService orderItemService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private EntityManager entityManager;
+    //rollups are only applied after commit, which never happens in these rolled back tests
+    @MockBean
+    private OrderRollupService orderRollupService;
+    @MockBean
+    private OrderEventService orderEventService;
+
+    //Before each test is run, delete orders in the repository created for test purposes
+    @BeforeEach
+    void setUp() {
+        orderRepository.deleteAll();
+    }
+
+    @Test
+    void shouldAddItemsAndRecomputeTotal() {
+        // Given - an order without items, total 1.00 at version 0
+        Order order = orderRepository.saveAndFlush(new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0));
+        entityManager.clear();
+
+        // When - two items are added
+        List<OrderItem> added = orderItemService.addItems(order.getId(),
+                List.of(new OrderItem("ONION-1", 3, 2.50), new OrderItem("MUD-9", 1, 10.0))).orElseThrow();
+
+        // Then - the items have ids, the order is worth their sum and has a new version
+        assertThat(added).allSatisfy(item -> assertThat(item.getId()).isNotNull());
+        entityManager.clear();
+        Order updated = entityManager.find(Order.class, order.getId());
+        assertThat(updated.getItems()).extracting(OrderItem::getSku).containsExactly("ONION-1", "MUD-9");
+        assertThat(updated.getTotal()).isEqualByComparingTo("17.50");
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        Mockito.verify(orderRollupService).updated(Mockito.argThat(before -> before.totalMinor() == 100L),
+                Mockito.argThat(after -> after.totalMinor() == 1750L));
+        Mockito.verify(orderEventService).updated(Mockito.any());
+    }
+
+    @Test
+    void shouldRemoveItemButNotTheLastOne() {
+        // Given - an order with two items
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 1.0);
+        order.addItem(new OrderItem("ONION-1", 3, 2.50));
+        order.addItem(new OrderItem("MUD-9", 1, 10.0));
+        orderRepository.saveAndFlush(order);
+        Long onion = order.getItems().get(0).getId();
+        Long mud = order.getItems().get(1).getId();
+        entityManager.clear();
+
+        // When - the items are removed one after the other
+        // Then - the first goes and the total follows, the last one stays, an unknown one is not found
+        assertThat(orderItemService.removeItem(order.getId(), mud)).isEqualTo(OrderService.Outcome.DONE);
+        assertThat(orderItemService.removeItem(order.getId(), onion)).isEqualTo(OrderService.Outcome.CONFLICT);
+        assertThat(orderItemService.removeItem(order.getId(), mud)).isEqualTo(OrderService.Outcome.NOT_FOUND);
+        entityManager.clear();
+        Order updated = entityManager.find(Order.class, order.getId());
+        assertThat(updated.getItems()).extracting(OrderItem::getId).containsExactly(onion);
+        assertThat(updated.getTotal()).isEqualByComparingTo("7.50");
+    }
+}
@@ -0,0 +1,88 @@
+package com.testdrivendevelopment.OrderManagementSystem.service;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.CustomerRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.DailyRevenue;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderSnapshot;
+import com.testdrivendevelopment.OrderManagementSystem.model.RevenueReport;
+import com.testdrivendevelopment.OrderManagementSystem.repository.ArchivedOrderRepository;
+import com.testdrivendevelopment.OrderManagementSystem.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+class OrderRollupServiceTest {
+    private static final LocalDate DAY = LocalDate.parse("2023-06-11");
+
+    @Test
+    void shouldApplyChangesOnTopOfTheRebuiltRollups() {
+        // Given - rollups rebuilt from one day and one customer in the database
+        OrderRepository orderRepository = Mockito.mock(OrderRepository.class);
+        when(orderRepository.sumByDay()).thenReturn(List.of(new DailyRevenue(DAY, 2L, 6877L)));
+        when(orderRepository.sumByCustomer()).thenReturn(List.of(new CustomerRevenue("Shrek", 2L, 6877L)));
+        OrderRollupService rollups = new OrderRollupService(orderRepository, Mockito.mock(ArchivedOrderRepository.class), Mockito.mock(PlatformTransactionManager.class));
+        rollups.rebuild();
+
+        // When - an order is created, another moves to Fiona the next day, and one is deleted
+        OrderSnapshot created = new OrderSnapshot(3L, "Shrek", DAY, 1000L, 0L);
+        OrderSnapshot moved = new OrderSnapshot(1L, "Shrek", DAY, 2345L, 0L);
+        rollups.created(created);
+        rollups.updated(moved, new OrderSnapshot(1L, "Fiona", DAY.plusDays(1), 4000L, 1L));
+        rollups.deleted(created);
+
+        // Then - the rollups only count what is left
+        RevenueReport report = rollups.daily(DAY, DAY.plusDays(1));
+        assertThat(report.orderCount()).isEqualTo(2);
+        assertThat(report.revenue()).isEqualTo(new BigDecimal("85.32"));     //exact, no floating point drift
+        assertThat(report.days()).extracting(DailyRevenue::orderCount).containsExactly(1L, 1L);
+        assertThat(rollups.customer("Shrek")).get().extracting(CustomerRevenue::orderCount).isEqualTo(1L);
+        assertThat(rollups.customer("Fiona")).get().extracting(CustomerRevenue::revenue).isEqualTo(new BigDecimal("40.00"));
+        assertThat(rollups.customer("Farquaad")).isEmpty();
+    }
+
+    @Test
+    void shouldCountArchivedOrders() {
+        // Given - one order left in the orders table and one moved to the archive, on the same day for the same customer
+        OrderRepository orderRepository = Mockito.mock(OrderRepository.class);
+        ArchivedOrderRepository archivedOrderRepository = Mockito.mock(ArchivedOrderRepository.class);
+        when(orderRepository.sumByDay()).thenReturn(List.of(new DailyRevenue(DAY, 1L, 2345L)));
+        when(orderRepository.sumByCustomer()).thenReturn(List.of(new CustomerRevenue("Shrek", 1L, 2345L)));
+        when(archivedOrderRepository.sumByDay()).thenReturn(List.of(new DailyRevenue(DAY, 1L, 4532L)));
+        when(archivedOrderRepository.sumByCustomer()).thenReturn(List.of(new CustomerRevenue("Shrek", 1L, 4532L)));
+
+        // When - the rollups are rebuilt
+        OrderRollupService rollups = new OrderRollupService(orderRepository, archivedOrderRepository, Mockito.mock(PlatformTransactionManager.class));
+        rollups.rebuild();
+
+        // Then - both count
+        assertThat(rollups.daily(DAY, DAY).revenue()).isEqualTo(new BigDecimal("68.77"));
+        assertThat(rollups.customer("Shrek")).get().extracting(CustomerRevenue::orderCount).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldCountChangesCommittedDuringTheRebuildOnce() {
+        // Given - rollups not built yet, whose rebuild sees 2 orders while a third is committed after its snapshot
+        OrderRepository orderRepository = Mockito.mock(OrderRepository.class);
+        OrderRollupService rollups = new OrderRollupService(orderRepository, Mockito.mock(ArchivedOrderRepository.class), Mockito.mock(PlatformTransactionManager.class));
+        when(orderRepository.sumByDay()).thenAnswer(invocation -> {
+            rollups.created(new OrderSnapshot(3L, "Shrek", DAY, 1000L, 0L));
+            return List.of(new DailyRevenue(DAY, 2L, 6877L));
+        });
+        when(orderRepository.sumByCustomer()).thenReturn(List.of(new CustomerRevenue("Shrek", 2L, 6877L)));
+        assertThatThrownBy(() -> rollups.daily(DAY, DAY)).isInstanceOf(RollupsNotReadyException.class);
+
+        // When - the rebuild runs
+        rollups.rebuild();
+
+        // Then - the order committed during the rebuild is counted once, on top of the snapshot
+        assertThat(rollups.daily(DAY, DAY).orderCount()).isEqualTo(3);
+        assertThat(rollups.customer("Shrek")).get().extracting(CustomerRevenue::revenue).isEqualTo(new BigDecimal("78.77"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.testdrivendevelopment.OrderManagementSystem.validation;
+
+import com.testdrivendevelopment.OrderManagementSystem.model.Order;
+import com.testdrivendevelopment.OrderManagementSystem.model.OrderItem;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderValidatorTest {
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUpValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldAcceptValidOrderWithoutAllocatingViolations() {
+        // Given - a valid order
+        Order order = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
+
+        // When - it is validated
+        // Then - the shared empty list comes back
+        assertThat(OrderValidator.validate(order)).isSameAs(List.of());
+    }
+
+    @Test
+    void shouldReportSameViolationsAsBeanValidation() {
+        // Given - orders breaking each rule, some of them at the edges (blank but not empty, today, one cent, no date)
+        Order euro = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
+        euro.setCurrency("EUR");
+        Order withItems = new Order("Shrek", LocalDate.now(), "123 Swamp", 100.0);
+        withItems.addItem(new OrderItem("ONION-1", 3, 2.50));
+        withItems.addItem(new OrderItem("", 0, 0.0));
+        List<Order> orders = List.of(
+                new Order("", LocalDate.now().plusDays(1), "", -100.0),
+                new Order(null, null, null, 0.0),
+                new Order(" ", LocalDate.now(), " ", 0.01),
+                new Order("Fiona", LocalDate.now().minusYears(3), "1 Castle Rd", 5.0),
+                euro,
+                withItems);
+
+        // When - they are validated by hand and by Hibernate Validator
+        // Then - same fields with the same messages
+        for (Order order : orders) {
+            Set<String> expected = validator.validate(order).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.toSet());
+            Set<String> actual = OrderValidator.validate(order).stream()
+                    .map(FieldViolation::toString)
+                    .collect(Collectors.toSet());
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldThrowForInvalidOrder() {
+        // Given - an order without a customer name
+        Order order = new Order("", LocalDate.now(), "123 Swamp", 100.0);
+
+        // When - it is required to be valid
+        // Then - the exception carries the violation
+        assertThatThrownBy(() -> OrderValidator.requireValid(order))
+                .isInstanceOf(OrderValidationException.class)
+                .satisfies(e -> assertThat(((OrderValidationException) e).getViolations())
+                        .containsExactly(new FieldViolation("customerName", OrderValidator.CUSTOMER_NAME_REQUIRED)));
+    }
+}